@@ -0,0 +1,417 @@
+package com.mengwangbao.xiu2.cli;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+import com.mengwangbao.xiu2.util.ObjectMapperHolder;
+import com.mengwangbao.xiu2.util.SignatureParamBuilder;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 批量签名/验签命令行工具
+ * <p>
+ * 输入为 JSON Lines，每行一个注册请求对象（字段与 {@code DeviceRegisterRequest} 序列化结果一致）：
+ * <ul>
+ *     <li>sign 模式：输出原请求并追加 {@code signature} 字段，可直接作为 verify 模式的输入；
+ *     无法签名的行以 {@code {"line":n,"error":...}} 写入标准错误或 {@code --errors} 指定的文件，不混入签名结果</li>
+ *     <li>verify 模式：每行需包含 {@code signature} 字段，输出 {@code {"line":n,"device_sn":...,"valid":true}}</li>
+ * </ul>
+ * 按批次并行处理，输出顺序与输入一致。
+ * <p>
+ * 用法示例（依赖包位于 jar 同级的 lib/ 目录，可通过 {@code mvn dependency:copy-dependencies -DoutputDirectory=target/lib} 准备）：
+ * <pre>
+ * java -jar xiu2-sdk-1.0.jar --mode verify --public-key pub.pem --in requests.jsonl --summary
+ * </pre>
+ */
+public class BatchSignTool {
+
+    private static final String USAGE = String.join("\n",
+            "用法: java -jar xiu2-sdk.jar --mode <sign|verify> [选项]",
+            "  --mode <sign|verify>    处理模式",
+            "  --private-key <file>    私钥 PEM 文件（sign 模式必填）",
+            "  --public-key <file>     公钥 PEM 文件（verify 模式必填）",
+            "  --in <file>             输入 JSON Lines 文件，默认读取标准输入",
+            "  --out <file>            输出文件，默认写入标准输出",
+            "  --errors <file>         sign 模式下无法签名的行写入该文件，默认写入标准错误",
+            "  --threads <n>           并行线程数，默认为 CPU 核数",
+            "  --batch-size <n>        每个任务处理的行数，默认 1024",
+            "  --summary               处理完成后向标准错误输出统计信息",
+            "  --help                  显示帮助");
+
+    private static final TypeReference<LinkedHashMap<String, Object>> MAP_TYPE =
+            new TypeReference<LinkedHashMap<String, Object>>() {
+            };
+
+    private static final String SIGNATURE_FIELD = "signature";
+
+    private final ObjectMapper objectMapper = ObjectMapperHolder.get();
+
+    private final Options options;
+    private final Ed25519PrivateKeyParameters privateKey;
+    private final Ed25519PublicKeyParameters publicKey;
+
+    private final LongAdder validCount = new LongAdder();
+    private final LongAdder invalidCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+
+    public BatchSignTool(Options options) throws Exception {
+        this.options = options;
+        if (options.mode == Mode.SIGN) {
+            this.privateKey = Ed25519Utils.decodePrivateKeyFromPem(readFile(options.privateKeyFile));
+            this.publicKey = null;
+        } else {
+            this.privateKey = null;
+            this.publicKey = Ed25519Utils.decodePublicKeyFromPem(readFile(options.publicKeyFile));
+        }
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options == null) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        try {
+            Summary summary = new BatchSignTool(options).run();
+            if (options.summary) {
+                summary.print(System.err);
+            }
+            System.exit(summary.invalid + summary.errors == 0 ? 0 : 1);
+        } catch (Exception e) {
+            System.err.println("处理失败: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * 执行批处理
+     *
+     * @return 统计信息
+     * @throws Exception 当读写失败时
+     */
+    public Summary run() throws Exception {
+        long start = System.nanoTime();
+        long lines = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads, r -> {
+            Thread thread = new Thread(r, "xiu2-batch-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // 最多同时在途的批次数，限制内存占用，同时保证输出有序
+        int maxInFlight = options.threads * 4;
+        Deque<Future<BatchOutput>> inFlight = new ArrayDeque<>(maxInFlight);
+
+        Writer errorWriter = openErrorWriter();
+        try (BufferedReader reader = openReader(); Writer writer = openWriter()) {
+            List<String> batch = new ArrayList<>(options.batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                batch.add(line);
+                lines++;
+                if (batch.size() == options.batchSize) {
+                    if (inFlight.size() == maxInFlight) {
+                        inFlight.poll().get().writeTo(writer, errorWriter);
+                    }
+                    inFlight.add(submit(executor, batch, lines - batch.size() + 1));
+                    batch = new ArrayList<>(options.batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                inFlight.add(submit(executor, batch, lines - batch.size() + 1));
+            }
+            while (!inFlight.isEmpty()) {
+                inFlight.poll().get().writeTo(writer, errorWriter);
+            }
+        } finally {
+            executor.shutdownNow();
+            if (options.errorsFile != null) {
+                errorWriter.close();
+            } else {
+                // 不关闭标准错误
+                errorWriter.flush();
+            }
+        }
+
+        return new Summary(lines, validCount.sum(), invalidCount.sum(), errorCount.sum(), System.nanoTime() - start);
+    }
+
+    private Future<BatchOutput> submit(ExecutorService executor, List<String> batch, long firstLineNumber) {
+        return executor.submit(() -> processBatch(batch, firstLineNumber));
+    }
+
+    /**
+     * 一个批次的输出；sign 模式的错误行单独存放，不与签名结果混在一起
+     */
+    private static class BatchOutput {
+        final StringBuilder records;
+        final StringBuilder errors = new StringBuilder();
+
+        BatchOutput(int capacity) {
+            records = new StringBuilder(capacity);
+        }
+
+        void writeTo(Writer writer, Writer errorWriter) throws IOException {
+            writer.append(records);
+            if (errors.length() > 0) {
+                errorWriter.append(errors);
+            }
+        }
+    }
+
+    private BatchOutput processBatch(List<String> batch, long firstLineNumber) throws IOException {
+        BatchOutput output = new BatchOutput(batch.size() * 256);
+        long lineNumber = firstLineNumber;
+        for (String line : batch) {
+            if (!line.trim().isEmpty()) {
+                processLine(line, lineNumber, output);
+            }
+            lineNumber++;
+        }
+        return output;
+    }
+
+    private void processLine(String line, long lineNumber, BatchOutput output) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            Map<String, Object> params = objectMapper.readValue(line, MAP_TYPE);
+
+            if (options.mode == Mode.SIGN) {
+                params.remove(SIGNATURE_FIELD);
+                byte[] message = SignatureParamBuilder.buildSignString(params).getBytes(StandardCharsets.UTF_8);
+                params.put(SIGNATURE_FIELD, Ed25519Utils.signMessage(message, privateKey));
+                validCount.increment();
+                output.records.append(objectMapper.writeValueAsString(params)).append('\n');
+                return;
+            }
+
+            Object signature = params.remove(SIGNATURE_FIELD);
+            result.put("line", lineNumber);
+            result.put("device_sn", params.get("device_sn"));
+            if (!(signature instanceof String)) {
+                throw new IllegalArgumentException("缺少 signature 字段");
+            }
+            byte[] message = SignatureParamBuilder.buildSignString(params).getBytes(StandardCharsets.UTF_8);
+            boolean valid = Ed25519Utils.verifySignature(message, (String) signature, publicKey);
+            (valid ? validCount : invalidCount).increment();
+            result.put("valid", valid);
+        } catch (Exception e) {
+            errorCount.increment();
+            result.put("line", lineNumber);
+            result.put("error", e.getClass().getSimpleName() + ": " + e.getMessage());
+            StringBuilder target = options.mode == Mode.SIGN ? output.errors : output.records;
+            target.append(objectMapper.writeValueAsString(result)).append('\n');
+            return;
+        }
+        output.records.append(objectMapper.writeValueAsString(result)).append('\n');
+    }
+
+    private BufferedReader openReader() throws IOException {
+        if (options.inFile == null) {
+            return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+        }
+        return Files.newBufferedReader(Paths.get(options.inFile), StandardCharsets.UTF_8);
+    }
+
+    private Writer openWriter() throws IOException {
+        if (options.outFile == null) {
+            return new BufferedWriter(Channels.newWriter(Channels.newChannel(System.out), StandardCharsets.UTF_8.name()), 1 << 16);
+        }
+        return Files.newBufferedWriter(Paths.get(options.outFile), StandardCharsets.UTF_8);
+    }
+
+    private Writer openErrorWriter() throws IOException {
+        if (options.errorsFile == null) {
+            return new OutputStreamWriter(System.err, StandardCharsets.UTF_8);
+        }
+        return Files.newBufferedWriter(Paths.get(options.errorsFile), StandardCharsets.UTF_8);
+    }
+
+    private static String readFile(String file) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 处理模式
+     */
+    public enum Mode {
+        SIGN, VERIFY
+    }
+
+    /**
+     * 命令行选项
+     */
+    public static class Options {
+        Mode mode;
+        String privateKeyFile;
+        String publicKeyFile;
+        String inFile;
+        String outFile;
+        String errorsFile;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batchSize = 1024;
+        boolean summary;
+
+        /**
+         * 解析命令行参数
+         *
+         * @param args 命令行参数
+         * @return 解析结果，指定 --help 时返回 null
+         * @throws IllegalArgumentException 当参数不合法时
+         */
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--help":
+                    case "-h":
+                        return null;
+                    case "--summary":
+                        options.summary = true;
+                        break;
+                    case "--mode":
+                        String mode = value(args, ++i, arg);
+                        if ("sign".equals(mode)) {
+                            options.mode = Mode.SIGN;
+                        } else if ("verify".equals(mode)) {
+                            options.mode = Mode.VERIFY;
+                        } else {
+                            throw new IllegalArgumentException("未知模式: " + mode);
+                        }
+                        break;
+                    case "--private-key":
+                        options.privateKeyFile = value(args, ++i, arg);
+                        break;
+                    case "--public-key":
+                        options.publicKeyFile = value(args, ++i, arg);
+                        break;
+                    case "--in":
+                        options.inFile = value(args, ++i, arg);
+                        break;
+                    case "--out":
+                        options.outFile = value(args, ++i, arg);
+                        break;
+                    case "--errors":
+                        options.errorsFile = value(args, ++i, arg);
+                        break;
+                    case "--threads":
+                        options.threads = positiveInt(value(args, ++i, arg), arg);
+                        break;
+                    case "--batch-size":
+                        options.batchSize = positiveInt(value(args, ++i, arg), arg);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("未知参数: " + arg);
+                }
+            }
+
+            if (options.mode == null) {
+                throw new IllegalArgumentException("缺少 --mode 参数");
+            }
+            if (options.mode == Mode.SIGN && options.privateKeyFile == null) {
+                throw new IllegalArgumentException("sign 模式需要 --private-key 参数");
+            }
+            if (options.mode == Mode.VERIFY && options.publicKeyFile == null) {
+                throw new IllegalArgumentException("verify 模式需要 --public-key 参数");
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int index, String name) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException(name + " 缺少参数值");
+            }
+            return args[index];
+        }
+
+        private static int positiveInt(String value, String name) {
+            try {
+                int result = Integer.parseInt(value);
+                if (result > 0) {
+                    return result;
+                }
+            } catch (NumberFormatException e) {
+                // 统一在下方抛出
+            }
+            throw new IllegalArgumentException(name + " 必须是正整数: " + value);
+        }
+    }
+
+    /**
+     * 处理统计信息
+     */
+    public static class Summary {
+        private final long lines;
+        private final long valid;
+        private final long invalid;
+        private final long errors;
+        private final long elapsedNanos;
+
+        public Summary(long lines, long valid, long invalid, long errors, long elapsedNanos) {
+            this.lines = lines;
+            this.valid = valid;
+            this.invalid = invalid;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getValid() {
+            return valid;
+        }
+
+        public long getInvalid() {
+            return invalid;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        void print(PrintStream out) {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            out.printf("lines=%d valid=%d invalid=%d errors=%d elapsed=%.3fs throughput=%.0f lines/s%n",
+                    lines, valid, invalid, errors, seconds, seconds > 0 ? lines / seconds : 0.0);
+        }
+    }
+}
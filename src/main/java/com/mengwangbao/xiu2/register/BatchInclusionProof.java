@@ -0,0 +1,97 @@
+package com.mengwangbao.xiu2.register;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量注册信封中单个请求的包含证明
+ * <p>
+ * 携带该请求在批内的位置、批大小、Merkle 审计路径以及整批的根哈希与签名，
+ * 服务端无需拿到整批请求即可验证单个设备的注册请求。
+ *
+ * @see RegisterSDK#createInclusionProof(BatchRegisterEnvelope, int)
+ * @see RegisterSDK#verifyInclusionProof(DeviceRegisterRequest, BatchInclusionProof, String)
+ */
+public class BatchInclusionProof {
+
+    /**
+     * 请求在批内的下标，从 0 开始
+     */
+    private int index;
+
+    /**
+     * 批内请求总数
+     */
+    @JsonProperty("batch_size")
+    private int batchSize;
+
+    /**
+     * 审计路径，小写十六进制，顺序为从叶子到根
+     */
+    @JsonProperty("audit_path")
+    private List<String> auditPath = new ArrayList<>();
+
+    /**
+     * Merkle 根哈希，小写十六进制
+     */
+    @JsonProperty("root_hash")
+    private String rootHash;
+
+    /**
+     * 对根哈希的 Base64 编码签名
+     */
+    private String signature;
+
+    public BatchInclusionProof() {
+    }
+
+    public BatchInclusionProof(int index, int batchSize, List<String> auditPath, String rootHash, String signature) {
+        this.index = index;
+        this.batchSize = batchSize;
+        this.auditPath = auditPath;
+        this.rootHash = rootHash;
+        this.signature = signature;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public List<String> getAuditPath() {
+        return auditPath;
+    }
+
+    public void setAuditPath(List<String> auditPath) {
+        this.auditPath = auditPath;
+    }
+
+    public String getRootHash() {
+        return rootHash;
+    }
+
+    public void setRootHash(String rootHash) {
+        this.rootHash = rootHash;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public void setSignature(String signature) {
+        this.signature = signature;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mengwangbao.xiu2.register;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量注册信封
+ * <p>
+ * 网关汇聚多个子设备的注册请求时使用：以每个请求的待签名串为叶子构建 Merkle 树（{@link com.mengwangbao.xiu2.util.MerkleTree}），
+ * 只对根哈希做一次 Ed25519 签名。服务端对整批请求只需一次验签加 N 次哈希；
+ * 也可以通过 {@link BatchInclusionProof} 单独验证其中某一个请求。
+ * <p>
+ * 签名的消息为 {@code batch_root=<根哈希十六进制>&batch_size=<请求数>}，与单个请求的待签名串不会重合。
+ *
+ * @see RegisterSDK#signBatch(List, String)
+ * @see RegisterSDK#verifyBatch(BatchRegisterEnvelope, String)
+ */
+public class BatchRegisterEnvelope {
+
+    /**
+     * 批内的注册请求，顺序即 Merkle 树叶子顺序
+     */
+    private List<DeviceRegisterRequest> requests = new ArrayList<>();
+
+    /**
+     * Merkle 根哈希，小写十六进制
+     */
+    @JsonProperty("root_hash")
+    private String rootHash;
+
+    /**
+     * 对根哈希的 Base64 编码签名
+     */
+    private String signature;
+
+    public BatchRegisterEnvelope() {
+    }
+
+    public BatchRegisterEnvelope(List<DeviceRegisterRequest> requests, String rootHash, String signature) {
+        this.requests = requests;
+        this.rootHash = rootHash;
+        this.signature = signature;
+    }
+
+    public List<DeviceRegisterRequest> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<DeviceRegisterRequest> requests) {
+        this.requests = requests;
+    }
+
+    public String getRootHash() {
+        return rootHash;
+    }
+
+    public void setRootHash(String rootHash) {
+        this.rootHash = rootHash;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public void setSignature(String signature) {
+        this.signature = signature;
+    }
+}
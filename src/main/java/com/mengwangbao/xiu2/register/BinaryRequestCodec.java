@@ -0,0 +1,490 @@
+package com.mengwangbao.xiu2.register;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * DeviceRegisterRequest 紧凑二进制编解码器
+ * 作为 JSON 之外的可选传输格式，适用于计费蜂窝链路等对报文大小敏感的场景。
+ * <p>
+ * 报文结构：
+ * <pre>
+ * FORMAT_VERSION(1 字节) { tag(1 字节) payload }*
+ * tag = 字段编号 &lt;&lt; 3 | 编码方式
+ * </pre>
+ * 字段编号按签名字段名的字典序分配，编码时严格按编号递增写出，
+ * 因此对按通用规则签名的 schema（如 1.0），顺序扫描报文即可得到与
+ * {@link RegisterSDK#buildSignString(DeviceRegisterRequest)} 完全一致的待签名串，无需排序；
+ * 其他已注册的 schema 按注册表中的规则生成（见 {@link #buildSignString(byte[], CanonicalizerRegistry)}）。
+ * <p>
+ * 编码方式：
+ * <ul>
+ *     <li>字符串：varint 字节长度 + UTF-8 字节</li>
+ *     <li>varint：无符号 LEB128，用于 timestamp</li>
+ *     <li>MAC：6 字节原始值，仅用于大写 XX:XX:XX:XX:XX:XX 格式，其余格式退化为字符串</li>
+ *     <li>数字：varint 位数 + BCD 压缩，用于纯数字的 IMEI/ICCID</li>
+ *     <li>十六进制：varint 字符数 + 4 位压缩值 + 大小写位图，用于 nonce 等十六进制字符串，大小写无损</li>
+ * </ul>
+ * 空字符串与 null 均不写出（与签名规则中“空值不参与签名”一致），解码后为 null。
+ * device_sn、nonce、timestamp 为必填字段，缺少时编码和解码均抛出异常；timestamp 总是最后一个字段，
+ * 因此报文在任意位置被截断都会因缺少 timestamp 或字段不完整而被拒绝。
+ * 解码时每个字段最多出现一次且长度有上限，耗时与报文长度成线性关系。
+ */
+public class BinaryRequestCodec {
+
+    /**
+     * 当前格式版本
+     */
+    public static final byte FORMAT_VERSION = 1;
+
+    /**
+     * 单个字符串字段的最大字节数
+     */
+    public static final int MAX_FIELD_LENGTH = 256;
+
+    static final int FIELD_DEVICE_SN = 1;
+    static final int FIELD_HARDWARE_VERSION = 2;
+    static final int FIELD_ICCID = 3;
+    static final int FIELD_IMEI = 4;
+    static final int FIELD_LATITUDE = 5;
+    static final int FIELD_LONGITUDE = 6;
+    static final int FIELD_MAC = 7;
+    static final int FIELD_NONCE = 8;
+    static final int FIELD_SCHEMA_VERSION = 9;
+    static final int FIELD_SOFTWARE_VERSION = 10;
+    static final int FIELD_TIMESTAMP = 11;
+    private static final int FIELD_COUNT = 11;
+
+    /**
+     * 字段名，下标为字段编号，已按字典序排列
+     */
+    private static final String[] FIELD_NAMES = {
+            null,
+            "device_sn",
+            "hardware_version",
+            "iccid",
+            "imei",
+            "latitude",
+            "longitude",
+            "mac",
+            "nonce",
+            "schema_version",
+            "software_version",
+            "timestamp"
+    };
+
+    private static final int ENCODING_STRING = 0;
+    private static final int ENCODING_VARINT = 1;
+    private static final int ENCODING_MAC = 2;
+    private static final int ENCODING_DIGITS = 3;
+    private static final int ENCODING_HEX = 4;
+
+    private static final int MAC_LENGTH = 17;
+    private static final int MAX_PACKED_CHARS = 64;
+
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+    private static final char[] HEX_LOWER = "0123456789abcdef".toCharArray();
+
+    /**
+     * 将请求编码为二进制报文
+     *
+     * @param request 设备注册请求
+     * @return 二进制报文
+     * @throws IllegalArgumentException 当必填字段为空或字段超过最大长度时
+     */
+    public static byte[] encode(DeviceRegisterRequest request) {
+        requireField(FIELD_DEVICE_SN, request.getDeviceSn());
+        requireField(FIELD_NONCE, request.getNonce());
+        Output out = new Output(64);
+        out.write(FORMAT_VERSION);
+        writeString(out, FIELD_DEVICE_SN, request.getDeviceSn());
+        writeString(out, FIELD_HARDWARE_VERSION, request.getHardwareVersion());
+        writeDigits(out, FIELD_ICCID, request.getIccid());
+        writeDigits(out, FIELD_IMEI, request.getImei());
+        writeString(out, FIELD_LATITUDE, request.getLatitude());
+        writeString(out, FIELD_LONGITUDE, request.getLongitude());
+        writeMac(out, FIELD_MAC, request.getMac());
+        writeHex(out, FIELD_NONCE, request.getNonce());
+        writeString(out, FIELD_SCHEMA_VERSION, request.getSchemaVersion());
+        writeString(out, FIELD_SOFTWARE_VERSION, request.getSoftwareVersion());
+        out.write(tag(FIELD_TIMESTAMP, ENCODING_VARINT));
+        out.writeVarint(request.getTimestamp());
+        return out.toByteArray();
+    }
+
+    /**
+     * 将二进制报文解码为请求对象
+     *
+     * @param data 二进制报文
+     * @return 设备注册请求
+     * @throws IllegalArgumentException 当报文格式不合法时
+     */
+    public static DeviceRegisterRequest decode(byte[] data) {
+        String[] values = new String[FIELD_COUNT + 1];
+        long timestamp = decodeFields(data, values);
+        return toRequest(values, timestamp);
+    }
+
+    private static DeviceRegisterRequest toRequest(String[] values, long timestamp) {
+        DeviceRegisterRequest request = new DeviceRegisterRequest(timestamp, values[FIELD_NONCE]);
+        request.setDeviceSn(values[FIELD_DEVICE_SN]);
+        request.setHardwareVersion(values[FIELD_HARDWARE_VERSION]);
+        request.setIccid(values[FIELD_ICCID]);
+        request.setImei(values[FIELD_IMEI]);
+        request.setLatitude(values[FIELD_LATITUDE]);
+        request.setLongitude(values[FIELD_LONGITUDE]);
+        request.setMac(values[FIELD_MAC]);
+        request.setSchemaVersion(values[FIELD_SCHEMA_VERSION]);
+        request.setSoftwareVersion(values[FIELD_SOFTWARE_VERSION]);
+        return request;
+    }
+
+    /**
+     * 按全局共享的规范化规则注册表，直接从二进制报文生成待签名串，结果与对解码后的请求调用
+     * {@link RegisterSDK#buildSignString(DeviceRegisterRequest)} 一致
+     *
+     * @param data 二进制报文
+     * @return 待签名串
+     * @throws IllegalArgumentException 当报文格式不合法时
+     */
+    public static String buildSignString(byte[] data) {
+        return buildSignString(data, CanonicalizerRegistry.getDefault());
+    }
+
+    /**
+     * 直接从二进制报文生成待签名串，结果与使用同一注册表的 {@link RegisterSDK} 对解码后的请求调用
+     * {@link RegisterSDK#buildSignString(DeviceRegisterRequest)} 一致
+     * <p>
+     * 报文中的 schema_version 按通用规则签名时顺序拼接字段；否则解码为请求后交给注册表中该版本的规则。
+     *
+     * @param data 二进制报文
+     * @param registry 规范化规则注册表
+     * @return 待签名串
+     * @throws IllegalArgumentException 当报文格式不合法时
+     */
+    public static String buildSignString(byte[] data, CanonicalizerRegistry registry) {
+        String[] values = new String[FIELD_COUNT + 1];
+        long timestamp = decodeFields(data, values);
+        String schemaVersion = values[FIELD_SCHEMA_VERSION];
+        if (!registry.usesGenericRules(schemaVersion)) {
+            return registry.get(schemaVersion).canonicalize(toRequest(values, timestamp));
+        }
+
+        StringBuilder sb = new StringBuilder(data.length * 2 + 128);
+        for (int field = 1; field < FIELD_TIMESTAMP; field++) {
+            if (values[field] != null) {
+                sb.append(FIELD_NAMES[field]).append('=').append(values[field]).append('&');
+            }
+        }
+        sb.append(FIELD_NAMES[FIELD_TIMESTAMP]).append('=').append(timestamp);
+        return sb.toString();
+    }
+
+    /**
+     * 解码所有字段，字符串字段写入 values（下标为字段编号），返回 timestamp
+     */
+    private static long decodeFields(byte[] data, String[] values) {
+        Input in = new Input(data);
+        if (in.remaining() == 0 || in.readByte() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的二进制格式版本");
+        }
+
+        long timestamp = 0;
+        boolean hasTimestamp = false;
+        int lastField = 0;
+        char[] scratch = new char[MAX_PACKED_CHARS];
+        while (in.remaining() > 0) {
+            int tag = in.readByte() & 0xFF;
+            int field = tag >>> 3;
+            int encoding = tag & 0x07;
+            if (field <= lastField || field > FIELD_COUNT) {
+                throw new IllegalArgumentException("字段编号非法或顺序错误: " + field);
+            }
+            lastField = field;
+
+            if (field == FIELD_TIMESTAMP) {
+                if (encoding != ENCODING_VARINT) {
+                    throw new IllegalArgumentException("timestamp 编码方式非法: " + encoding);
+                }
+                timestamp = in.readVarint();
+                hasTimestamp = true;
+                continue;
+            }
+
+            switch (encoding) {
+                case ENCODING_STRING:
+                    values[field] = in.readString();
+                    break;
+                case ENCODING_MAC:
+                    values[field] = in.readMac(scratch);
+                    break;
+                case ENCODING_DIGITS:
+                    values[field] = in.readDigits(scratch);
+                    break;
+                case ENCODING_HEX:
+                    values[field] = in.readHex(scratch);
+                    break;
+                default:
+                    throw new IllegalArgumentException("字段 " + FIELD_NAMES[field] + " 编码方式非法: " + encoding);
+            }
+        }
+        if (!hasTimestamp) {
+            throw new IllegalArgumentException("缺少必填字段 timestamp，报文可能被截断");
+        }
+        requireField(FIELD_DEVICE_SN, values[FIELD_DEVICE_SN]);
+        requireField(FIELD_NONCE, values[FIELD_NONCE]);
+        return timestamp;
+    }
+
+    private static void requireField(int field, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("缺少必填字段 " + FIELD_NAMES[field]);
+        }
+    }
+
+    private static int tag(int field, int encoding) {
+        return field << 3 | encoding;
+    }
+
+    private static void writeString(Output out, int field, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("字段 " + FIELD_NAMES[field] + " 超过最大长度 " + MAX_FIELD_LENGTH);
+        }
+        out.write(tag(field, ENCODING_STRING));
+        out.writeVarint(bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeMac(Output out, int field, String value) {
+        if (value == null || value.length() != MAC_LENGTH) {
+            writeString(out, field, value);
+            return;
+        }
+        byte[] packed = new byte[6];
+        for (int i = 0; i < 6; i++) {
+            int pos = i * 3;
+            int high = upperHexValue(value.charAt(pos));
+            int low = upperHexValue(value.charAt(pos + 1));
+            if (high < 0 || low < 0 || (i < 5 && value.charAt(pos + 2) != ':')) {
+                writeString(out, field, value);
+                return;
+            }
+            packed[i] = (byte) (high << 4 | low);
+        }
+        out.write(tag(field, ENCODING_MAC));
+        out.write(packed, 0, packed.length);
+    }
+
+    private static void writeDigits(Output out, int field, String value) {
+        if (value == null || value.isEmpty() || value.length() > MAX_PACKED_CHARS) {
+            writeString(out, field, value);
+            return;
+        }
+        int length = value.length();
+        byte[] packed = new byte[(length + 1) / 2];
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                writeString(out, field, value);
+                return;
+            }
+            packed[i >> 1] |= (byte) ((c - '0') << ((i & 1) == 0 ? 4 : 0));
+        }
+        out.write(tag(field, ENCODING_DIGITS));
+        out.writeVarint(length);
+        out.write(packed, 0, packed.length);
+    }
+
+    private static void writeHex(Output out, int field, String value) {
+        if (value == null || value.isEmpty() || value.length() > MAX_PACKED_CHARS) {
+            writeString(out, field, value);
+            return;
+        }
+        int length = value.length();
+        byte[] packed = new byte[(length + 1) / 2];
+        byte[] caseMask = new byte[(length + 7) / 8];
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            int nibble;
+            if (c >= '0' && c <= '9') {
+                nibble = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                nibble = c - 'a' + 10;
+            } else if (c >= 'A' && c <= 'F') {
+                nibble = c - 'A' + 10;
+                caseMask[i >> 3] |= (byte) (1 << (i & 7));
+            } else {
+                writeString(out, field, value);
+                return;
+            }
+            packed[i >> 1] |= (byte) (nibble << ((i & 1) == 0 ? 4 : 0));
+        }
+        out.write(tag(field, ENCODING_HEX));
+        out.writeVarint(length);
+        out.write(packed, 0, packed.length);
+        out.write(caseMask, 0, caseMask.length);
+    }
+
+    private static int upperHexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * 可扩容的字节输出缓冲
+     */
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void write(int b) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) b;
+        }
+
+        void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * 带边界检查的字节输入游标
+     */
+    private static final class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        int remaining() {
+            return data.length - position;
+        }
+
+        byte readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("报文被截断");
+            }
+            return data[position++];
+        }
+
+        long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("varint 过长");
+        }
+
+        int readLength(int max) {
+            long length = readVarint();
+            if (length <= 0 || length > max) {
+                throw new IllegalArgumentException("字段长度非法: " + length);
+            }
+            return (int) length;
+        }
+
+        String readString() {
+            int length = readLength(MAX_FIELD_LENGTH);
+            checkRemaining(length);
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        String readMac(char[] scratch) {
+            checkRemaining(6);
+            for (int i = 0; i < 6; i++) {
+                int b = data[position++] & 0xFF;
+                int pos = i * 3;
+                scratch[pos] = HEX_UPPER[b >>> 4];
+                scratch[pos + 1] = HEX_UPPER[b & 0x0F];
+                if (i < 5) {
+                    scratch[pos + 2] = ':';
+                }
+            }
+            return new String(scratch, 0, MAC_LENGTH);
+        }
+
+        String readDigits(char[] scratch) {
+            int length = readLength(MAX_PACKED_CHARS);
+            checkRemaining((length + 1) / 2);
+            for (int i = 0; i < length; i++) {
+                int nibble = nibble(i);
+                if (nibble > 9) {
+                    throw new IllegalArgumentException("BCD 数字非法");
+                }
+                scratch[i] = (char) ('0' + nibble);
+            }
+            position += (length + 1) / 2;
+            return new String(scratch, 0, length);
+        }
+
+        String readHex(char[] scratch) {
+            int length = readLength(MAX_PACKED_CHARS);
+            int packedLength = (length + 1) / 2;
+            checkRemaining(packedLength + (length + 7) / 8);
+            int maskOffset = position + packedLength;
+            for (int i = 0; i < length; i++) {
+                int nibble = nibble(i);
+                boolean upper = (data[maskOffset + (i >> 3)] & (1 << (i & 7))) != 0;
+                if (upper && nibble < 10) {
+                    throw new IllegalArgumentException("十六进制大小写位图非法");
+                }
+                scratch[i] = upper ? HEX_UPPER[nibble] : HEX_LOWER[nibble];
+            }
+            position = maskOffset + (length + 7) / 8;
+            return new String(scratch, 0, length);
+        }
+
+        private int nibble(int index) {
+            int b = data[position + (index >> 1)] & 0xFF;
+            return (index & 1) == 0 ? b >>> 4 : b & 0x0F;
+        }
+
+        private void checkRemaining(int length) {
+            if (length > remaining()) {
+                throw new IllegalArgumentException("报文被截断");
+            }
+        }
+    }
+}
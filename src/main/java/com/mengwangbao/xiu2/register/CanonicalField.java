@@ -0,0 +1,46 @@
+package com.mengwangbao.xiu2.register;
+
+import java.util.function.Function;
+
+/**
+ * 可参与签名的请求字段
+ */
+public enum CanonicalField {
+
+    DEVICE_SN("device_sn", DeviceRegisterRequest::getDeviceSn),
+    HARDWARE_VERSION("hardware_version", DeviceRegisterRequest::getHardwareVersion),
+    ICCID("iccid", DeviceRegisterRequest::getIccid),
+    IMEI("imei", DeviceRegisterRequest::getImei),
+    LATITUDE("latitude", DeviceRegisterRequest::getLatitude),
+    LONGITUDE("longitude", DeviceRegisterRequest::getLongitude),
+    MAC("mac", DeviceRegisterRequest::getMac),
+    NONCE("nonce", DeviceRegisterRequest::getNonce),
+    SCHEMA_VERSION("schema_version", DeviceRegisterRequest::getSchemaVersion),
+    SOFTWARE_VERSION("software_version", DeviceRegisterRequest::getSoftwareVersion),
+    /**
+     * 数值字段，0 也参与签名
+     */
+    TIMESTAMP("timestamp", null);
+
+    private final String key;
+    private final Function<DeviceRegisterRequest, String> accessor;
+
+    CanonicalField(String key, Function<DeviceRegisterRequest, String> accessor) {
+        this.key = key;
+        this.accessor = accessor;
+    }
+
+    /**
+     * 签名串中的字段名
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 字符串字段的取值函数，数值字段返回 null
+     */
+    Function<DeviceRegisterRequest, String> getAccessor() {
+        return accessor;
+    }
+}
@@ -0,0 +1,23 @@
+package com.mengwangbao.xiu2.register;
+
+/**
+ * 待签名串规范化规则
+ * <p>
+ * 每个 schema_version 对应一个实现，由 {@link CanonicalizerRegistry} 按请求的版本号选择。
+ * 实现必须线程安全。
+ */
+public interface Canonicalizer {
+
+    /**
+     * 适用的 schema_version
+     */
+    String getSchemaVersion();
+
+    /**
+     * 生成请求的待签名串
+     *
+     * @param request 设备注册请求对象
+     * @return 待签名串
+     */
+    String canonicalize(DeviceRegisterRequest request);
+}
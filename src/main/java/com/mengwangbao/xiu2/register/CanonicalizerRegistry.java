@@ -0,0 +1,84 @@
+package com.mengwangbao.xiu2.register;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按 schema_version 选择规范化规则
+ * <p>
+ * 规则在注册时编译完成，查找只是一次对不可变快照的 HashMap 查询；注册新版本时整体替换快照（写时复制），
+ * 读路径无锁。{@link #getDefault()} 返回的共享实例预置了 schema 1.0 的规则。
+ */
+public class CanonicalizerRegistry {
+
+    /**
+     * 当前默认的 schema_version
+     */
+    public static final String SCHEMA_VERSION_1_0 = "1.0";
+
+    private volatile Map<String, Canonicalizer> canonicalizers = Collections.emptyMap();
+
+    /**
+     * 全局共享实例，预置 schema 1.0 规则
+     */
+    public static CanonicalizerRegistry getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * 创建预置 schema 1.0 规则的注册表
+     */
+    public static CanonicalizerRegistry withDefaults() {
+        CanonicalizerRegistry registry = new CanonicalizerRegistry();
+        registry.register(CompiledCanonicalizer.allFields(SCHEMA_VERSION_1_0));
+        return registry;
+    }
+
+    /**
+     * 注册（或替换）一个版本的规则
+     *
+     * @param canonicalizer 规范化规则
+     */
+    public synchronized void register(Canonicalizer canonicalizer) {
+        if (canonicalizer == null || canonicalizer.getSchemaVersion() == null) {
+            throw new IllegalArgumentException("规范化规则及其 schemaVersion 不能为空");
+        }
+        Map<String, Canonicalizer> updated = new HashMap<>(canonicalizers);
+        updated.put(canonicalizer.getSchemaVersion(), canonicalizer);
+        canonicalizers = Collections.unmodifiableMap(updated);
+    }
+
+    /**
+     * 查找版本对应的规则
+     *
+     * @param schemaVersion schema_version
+     * @return 规范化规则，未注册时返回 null
+     */
+    public Canonicalizer get(String schemaVersion) {
+        return schemaVersion == null ? null : canonicalizers.get(schemaVersion);
+    }
+
+    /**
+     * 该版本的待签名串是否按通用规则（全部字段、原样输出、字典序）生成：
+     * 未注册的版本回退到通用规则，已注册的版本需为包含全部字段且不做编码转换的编译规则。
+     * 按固定字段顺序直接拼接的快速路径（{@link SignTemplate}、{@link BinaryRequestCodec}）只在此时适用。
+     */
+    boolean usesGenericRules(String schemaVersion) {
+        Canonicalizer canonicalizer = get(schemaVersion);
+        return canonicalizer == null
+                || (canonicalizer instanceof CompiledCanonicalizer && ((CompiledCanonicalizer) canonicalizer).usesGenericRules());
+    }
+
+    /**
+     * 已注册的版本
+     */
+    public Set<String> getSchemaVersions() {
+        return canonicalizers.keySet();
+    }
+
+    private static class DefaultHolder {
+        private static final CanonicalizerRegistry INSTANCE = withDefaults();
+    }
+}
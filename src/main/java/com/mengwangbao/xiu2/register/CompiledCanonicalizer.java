@@ -0,0 +1,138 @@
+package com.mengwangbao.xiu2.register;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 构造时编译好的规范化规则
+ * <p>
+ * 构造时确定参与签名的字段、按字段名字典序排好顺序，并为每个字段生成专用的拼接函数；
+ * 运行时只按固定顺序逐个调用，不再做 Map 构造、类型判断和排序。
+ * 空值规则与 {@link com.mengwangbao.xiu2.util.SignatureParamBuilder} 一致：null 和空字符串不参与签名，数值字段始终参与。
+ * <p>
+ * 线程安全。
+ */
+public class CompiledCanonicalizer implements Canonicalizer {
+
+    /**
+     * 向缓冲区追加一个字段，返回是否追加了内容
+     */
+    private interface FieldAppender {
+        boolean append(StringBuilder sb, DeviceRegisterRequest request);
+    }
+
+    private final String schemaVersion;
+    private final FieldAppender[] appenders;
+    private final int estimatedLength;
+    private final boolean genericRules;
+
+    /**
+     * @param schemaVersion 适用的 schema_version
+     * @param fields 参与签名的字段及其编码器，编码器为 null 时原样输出；必须包含 {@link CanonicalField#SCHEMA_VERSION}，
+     *               否则版本号不受签名保护，按一种 schema 签名的请求可以被改标为另一种规范化结果相同的 schema
+     * @throws IllegalArgumentException 当参数为空或缺少 schema_version 字段时
+     */
+    public CompiledCanonicalizer(String schemaVersion, Map<CanonicalField, ValueEncoder> fields) {
+        if (schemaVersion == null || schemaVersion.isEmpty()) {
+            throw new IllegalArgumentException("schemaVersion 不能为空");
+        }
+        if (fields == null || fields.isEmpty()) {
+            throw new IllegalArgumentException("参与签名的字段不能为空");
+        }
+        if (!fields.containsKey(CanonicalField.SCHEMA_VERSION)) {
+            throw new IllegalArgumentException("参与签名的字段必须包含 schema_version");
+        }
+        this.schemaVersion = schemaVersion;
+
+        List<CanonicalField> ordered = new ArrayList<>(fields.keySet());
+        ordered.sort(Comparator.comparing(CanonicalField::getKey));
+
+        this.appenders = new FieldAppender[ordered.size()];
+        int length = 0;
+        for (int i = 0; i < ordered.size(); i++) {
+            CanonicalField field = ordered.get(i);
+            appenders[i] = compileField(field, fields.get(field));
+            length += field.getKey().length() + 34;
+        }
+        this.estimatedLength = length;
+
+        boolean identity = ordered.size() == CanonicalField.values().length;
+        for (ValueEncoder encoder : fields.values()) {
+            identity &= encoder == null || encoder == ValueEncoder.IDENTITY;
+        }
+        this.genericRules = identity;
+    }
+
+    /**
+     * 创建包含全部字段、原样输出的规则，即 schema 1.0 的签名规则
+     *
+     * @param schemaVersion 适用的 schema_version
+     * @return 规范化规则
+     */
+    public static CompiledCanonicalizer allFields(String schemaVersion) {
+        Map<CanonicalField, ValueEncoder> fields = new EnumMap<>(CanonicalField.class);
+        for (CanonicalField field : CanonicalField.values()) {
+            fields.put(field, ValueEncoder.IDENTITY);
+        }
+        return new CompiledCanonicalizer(schemaVersion, fields);
+    }
+
+    /**
+     * 是否包含全部字段且原样输出，即与 {@link com.mengwangbao.xiu2.util.SignatureParamBuilder} 的通用规则相同
+     */
+    boolean usesGenericRules() {
+        return genericRules;
+    }
+
+    @Override
+    public String getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    @Override
+    public String canonicalize(DeviceRegisterRequest request) {
+        StringBuilder sb = new StringBuilder(estimatedLength);
+        for (FieldAppender appender : appenders) {
+            if (appender.append(sb, request)) {
+                sb.append('&');
+            }
+        }
+        if (sb.length() > 0) {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    private static FieldAppender compileField(CanonicalField field, ValueEncoder encoder) {
+        String prefix = field.getKey() + "=";
+        Function<DeviceRegisterRequest, String> accessor = field.getAccessor();
+        if (accessor == null) {
+            return (sb, request) -> {
+                sb.append(prefix).append(request.getTimestamp());
+                return true;
+            };
+        }
+        if (encoder == null || encoder == ValueEncoder.IDENTITY) {
+            return (sb, request) -> {
+                String value = accessor.apply(request);
+                if (value == null || value.isEmpty()) {
+                    return false;
+                }
+                sb.append(prefix).append(value);
+                return true;
+            };
+        }
+        return (sb, request) -> {
+            String value = accessor.apply(request);
+            if (value == null || value.isEmpty()) {
+                return false;
+            }
+            sb.append(prefix).append(encoder.encode(value));
+            return true;
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package com.mengwangbao.xiu2.register;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.security.SecureRandom;
 import java.util.HashMap;
@@ -10,6 +11,7 @@ import java.util.Map;
  * 设备注册请求模型类
  * 用于构建设备注册API的请求参数
  */
+@JsonDeserialize(using = DeviceRegisterRequestDeserializer.class)
 public class DeviceRegisterRequest {
 
     /**
@@ -81,6 +83,15 @@ public class DeviceRegisterRequest {
         this.nonce = generateNonce();
     }
 
+    /**
+     * 使用给定的timestamp和nonce构造，不读取系统时间、不生成随机数
+     * 供反序列化、二进制解码等会立即覆盖全部字段的场景使用
+     */
+    DeviceRegisterRequest(long timestamp, String nonce) {
+        this.timestamp = timestamp;
+        this.nonce = nonce;
+    }
+
     // Getters and Setters
     public String getSchemaVersion() {
         return schemaVersion;
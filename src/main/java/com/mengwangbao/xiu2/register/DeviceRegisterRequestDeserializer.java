@@ -0,0 +1,98 @@
+package com.mengwangbao.xiu2.register;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * DeviceRegisterRequest 反序列化器
+ * <p>
+ * 服务端解析请求体时，如果走无参构造函数，每个请求都会读取系统时间并生成 nonce（消耗 SecureRandom 熵），
+ * 而这些值随即被请求体中的字段覆盖。本反序列化器直接从 token 流填充字段，
+ * 使用不产生任何副作用的构造函数；请求体中缺少的 timestamp 为 0、nonce 为 null。
+ * <p>
+ * 未知字段的处理遵循 ObjectMapper 的 {@code FAIL_ON_UNKNOWN_PROPERTIES} 配置。
+ */
+public class DeviceRegisterRequestDeserializer extends StdDeserializer<DeviceRegisterRequest> {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeviceRegisterRequestDeserializer() {
+        super(DeviceRegisterRequest.class);
+    }
+
+    @Override
+    public DeviceRegisterRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (DeviceRegisterRequest) ctxt.handleUnexpectedToken(DeviceRegisterRequest.class, p);
+        }
+
+        DeviceRegisterRequest request = new DeviceRegisterRequest(0L, null);
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "schema_version":
+                    request.setSchemaVersion(readString(p, ctxt));
+                    break;
+                case "mac":
+                    request.setMac(readString(p, ctxt));
+                    break;
+                case "imei":
+                    request.setImei(readString(p, ctxt));
+                    break;
+                case "iccid":
+                    request.setIccid(readString(p, ctxt));
+                    break;
+                case "hardware_version":
+                    request.setHardwareVersion(readString(p, ctxt));
+                    break;
+                case "software_version":
+                    request.setSoftwareVersion(readString(p, ctxt));
+                    break;
+                case "longitude":
+                    request.setLongitude(readString(p, ctxt));
+                    break;
+                case "latitude":
+                    request.setLatitude(readString(p, ctxt));
+                    break;
+                case "device_sn":
+                    request.setDeviceSn(readString(p, ctxt));
+                    break;
+                case "timestamp":
+                    request.setTimestamp(_parseLongPrimitive(p, ctxt));
+                    break;
+                case "nonce":
+                    request.setNonce(readString(p, ctxt));
+                    break;
+                default:
+                    ctxt.handleUnknownProperty(p, this, DeviceRegisterRequest.class, name);
+                    break;
+            }
+        }
+        return request;
+    }
+
+    /**
+     * 读取字符串字段：null 保持为 null，数字、布尔等标量按文本读取，对象或数组视为格式错误
+     */
+    private static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return p.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != null && token.isScalarValue()) {
+            return p.getValueAsString();
+        }
+        return (String) ctxt.handleUnexpectedToken(String.class, p);
+    }
+}
@@ -0,0 +1,124 @@
+package com.mengwangbao.xiu2.register;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 防重放窗口
+ * <p>
+ * 记录时间窗口内已接受的 (device_sn, nonce)，同一组合再次出现即视为重放。
+ * 请求 timestamp 与当前时间相差超过窗口的直接拒绝，因此只需记住窗口内的 nonce；
+ * 过期条目在写入时按固定间隔惰性清理，不需要后台线程。
+ * <p>
+ * 重启后可通过 {@link RegistrationJournal#rebuildNonceWindow(NonceWindow)} 从日志恢复。线程安全。
+ */
+public class NonceWindow {
+
+    private static final int PURGE_INTERVAL = 4096;
+
+    private final long windowMillis;
+    private final ConcurrentHashMap<String, Long> seen = new ConcurrentHashMap<>();
+    private final AtomicInteger insertsSincePurge = new AtomicInteger();
+
+    /**
+     * @param windowMillis 允许的时间偏差（毫秒），同时也是 nonce 的记忆时长
+     */
+    public NonceWindow(long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis 必须大于0: " + windowMillis);
+        }
+        this.windowMillis = windowMillis;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * 检查请求是否为重放，不是则记录
+     *
+     * @param deviceSn 设备序列号
+     * @param nonce 防重放随机码
+     * @param timestamp 请求的毫秒级时间戳
+     * @return true 表示首次出现且时间戳在窗口内
+     */
+    public boolean checkAndRecord(String deviceSn, String nonce, long timestamp) {
+        return checkAndRecord(deviceSn, nonce, timestamp, System.currentTimeMillis());
+    }
+
+    boolean checkAndRecord(String deviceSn, String nonce, long timestamp, long nowMillis) {
+        if (deviceSn == null || nonce == null || Math.abs(nowMillis - timestamp) > windowMillis) {
+            return false;
+        }
+        if (seen.putIfAbsent(key(deviceSn, nonce), timestamp) != null) {
+            return false;
+        }
+        maybePurge(nowMillis);
+        return true;
+    }
+
+    /**
+     * 直接记录一个已接受的请求，用于从日志恢复；时间戳已过期的忽略
+     *
+     * @return 是否被记录
+     */
+    public boolean record(String deviceSn, String nonce, long timestamp) {
+        long now = System.currentTimeMillis();
+        if (timestamp < now - windowMillis) {
+            return false;
+        }
+        seen.put(key(deviceSn, nonce), timestamp);
+        maybePurge(now);
+        return true;
+    }
+
+    /**
+     * 撤销 {@link #checkAndRecord} 的记录，用于请求在记录 nonce 之后处理失败、需允许设备重试的情况；
+     * 只删除时间戳相同的条目
+     *
+     * @return 是否删除了条目
+     */
+    public boolean remove(String deviceSn, String nonce, long timestamp) {
+        if (deviceSn == null || nonce == null) {
+            return false;
+        }
+        return seen.remove(key(deviceSn, nonce), timestamp);
+    }
+
+    /**
+     * 当前记住的 nonce 数
+     */
+    public int size() {
+        return seen.size();
+    }
+
+    /**
+     * 清理时间戳已超出窗口的条目
+     */
+    public void purgeExpired() {
+        purgeExpired(System.currentTimeMillis());
+    }
+
+    private void maybePurge(long nowMillis) {
+        if (insertsSincePurge.incrementAndGet() >= PURGE_INTERVAL) {
+            insertsSincePurge.set(0);
+            purgeExpired(nowMillis);
+        }
+    }
+
+    private void purgeExpired(long nowMillis) {
+        long cutoff = nowMillis - windowMillis;
+        Iterator<Map.Entry<String, Long>> iterator = seen.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() < cutoff) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String key(String deviceSn, String nonce) {
+        return deviceSn + '\0' + nonce;
+    }
+}
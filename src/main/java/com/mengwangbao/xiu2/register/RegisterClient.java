@@ -0,0 +1,155 @@
+package com.mengwangbao.xiu2.register;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+import com.mengwangbao.xiu2.util.ObjectMapperHolder;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 设备注册阻塞式客户端
+ * <p>
+ * 每次注册都是一次同步 HTTP 调用：生成待签名串、签名后，将请求 JSON 连同 {@code signature} 字段 POST 到注册地址。
+ * {@link #registerAsync(DeviceRegisterRequest)} 将阻塞调用提交到 {@link RegisterExecutors#newBlockingExecutor()}
+ * 创建的执行器，在 JDK 21+ 上即“每个设备一个虚拟线程”，无需为并发量调整线程池大小。
+ */
+public class RegisterClient implements Closeable {
+
+    /**
+     * 请求体中签名字段名
+     */
+    public static final String SIGNATURE_FIELD = "signature";
+
+    private final URL endpoint;
+    private final Ed25519PrivateKeyParameters privateKey;
+    private final RegisterSDK registerSDK = new RegisterSDK();
+    private final ExecutorService executor;
+
+    private int connectTimeoutMillis = 5000;
+    private int readTimeoutMillis = 10000;
+
+    /**
+     * 使用默认阻塞执行器创建客户端
+     *
+     * @param endpoint 注册接口地址
+     * @param privateKeyPem 私钥PEM格式的字符串
+     * @throws Exception 当地址或私钥不合法时
+     */
+    public RegisterClient(String endpoint, String privateKeyPem) throws Exception {
+        this(endpoint, privateKeyPem, RegisterExecutors.newBlockingExecutor());
+    }
+
+    /**
+     * 使用指定执行器创建客户端，执行器随客户端一起关闭
+     *
+     * @param endpoint 注册接口地址
+     * @param privateKeyPem 私钥PEM格式的字符串
+     * @param executor 执行异步注册的执行器
+     * @throws Exception 当地址或私钥不合法时
+     */
+    public RegisterClient(String endpoint, String privateKeyPem, ExecutorService executor) throws Exception {
+        this.endpoint = new URL(endpoint);
+        this.privateKey = Ed25519Utils.decodePrivateKeyFromPem(privateKeyPem);
+        this.executor = executor;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * 同步注册，阻塞当前线程直到收到响应
+     *
+     * @param request 设备注册请求对象
+     * @return 注册响应，非2xx状态码不会抛出异常
+     * @throws IOException 当网络通信失败时
+     */
+    public RegisterResponse register(DeviceRegisterRequest request) throws IOException {
+        byte[] body = buildRequestBody(request);
+
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        try {
+            connection.setConnectTimeout(connectTimeoutMillis);
+            connection.setReadTimeout(readTimeoutMillis);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+
+            int statusCode = connection.getResponseCode();
+            InputStream in = statusCode >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            // 读完响应体后连接归还到 keep-alive 连接池，不主动断开
+            return new RegisterResponse(statusCode, readFully(in));
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    /**
+     * 异步注册，阻塞调用在执行器中完成
+     *
+     * @param request 设备注册请求对象
+     * @return 注册响应的Future，网络失败时以 {@link CompletionException} 结束
+     */
+    public CompletableFuture<RegisterResponse> registerAsync(DeviceRegisterRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return register(request);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 构建请求体：请求JSON + signature 字段
+     */
+    byte[] buildRequestBody(DeviceRegisterRequest request) throws IOException {
+        String signString = registerSDK.buildSignString(request);
+        String signature = Ed25519Utils.signMessage(signString.getBytes(StandardCharsets.UTF_8), privateKey);
+
+        ObjectNode node = ObjectMapperHolder.get().valueToTree(request);
+        node.put(SIGNATURE_FIELD, signature);
+        return ObjectMapperHolder.get().writeValueAsBytes(node);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = input.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.mengwangbao.xiu2.register;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 阻塞式注册调用的执行器工厂
+ * <p>
+ * 运行在 JDK 21 及以上时使用虚拟线程（每个任务一个虚拟线程，无需估算线程池大小）；
+ * 更早的 JVM 上退化为固定大小的平台线程池。
+ * SDK 以 Java 8 为编译目标，因此通过反射探测 {@code Executors.newVirtualThreadPerTaskExecutor()}，
+ * 同一个 jar 在新旧 JVM 上都能直接使用。
+ */
+public class RegisterExecutors {
+
+    /**
+     * 平台线程池的默认大小
+     */
+    public static final int DEFAULT_PLATFORM_POOL_SIZE = 200;
+
+    private static final Method VIRTUAL_EXECUTOR_FACTORY = findVirtualExecutorFactory();
+
+    /**
+     * 当前 JVM 是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_EXECUTOR_FACTORY != null;
+    }
+
+    /**
+     * 创建适合阻塞 I/O 的执行器：支持虚拟线程时使用虚拟线程，否则使用默认大小的平台线程池
+     */
+    public static ExecutorService newBlockingExecutor() {
+        return newBlockingExecutor(DEFAULT_PLATFORM_POOL_SIZE);
+    }
+
+    /**
+     * 创建适合阻塞 I/O 的执行器
+     *
+     * @param platformPoolSize 不支持虚拟线程时平台线程池的大小
+     * @return 执行器
+     */
+    public static ExecutorService newBlockingExecutor(int platformPoolSize) {
+        ExecutorService virtualExecutor = newVirtualThreadExecutor();
+        return virtualExecutor != null ? virtualExecutor : newPlatformExecutor(platformPoolSize);
+    }
+
+    /**
+     * 创建虚拟线程执行器
+     *
+     * @return 执行器，当前 JVM 不支持虚拟线程时返回 null
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        if (VIRTUAL_EXECUTOR_FACTORY == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) VIRTUAL_EXECUTOR_FACTORY.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 创建固定大小的平台线程池（守护线程）
+     *
+     * @param poolSize 线程数
+     * @return 执行器
+     */
+    public static ExecutorService newPlatformExecutor(int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("线程数必须大于0: " + poolSize);
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, r -> {
+            Thread thread = new Thread(r, "xiu2-register-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // JDK 19/20 上该方法属于预览特性，未开启 --enable-preview 时调用会抛出异常
+            ((ExecutorService) factory.invoke(null)).shutdown();
+            return factory;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
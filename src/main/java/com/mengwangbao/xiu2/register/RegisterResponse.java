@@ -0,0 +1,42 @@
+package com.mengwangbao.xiu2.register;
+
+/**
+ * 设备注册接口的响应
+ */
+public class RegisterResponse {
+
+    /**
+     * HTTP状态码
+     */
+    private final int statusCode;
+
+    /**
+     * 响应体原文
+     */
+    private final String body;
+
+    public RegisterResponse(int statusCode, String body) {
+        this.statusCode = statusCode;
+        this.body = body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * 是否为2xx成功响应
+     */
+    public boolean isSuccess() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    @Override
+    public String toString() {
+        return "RegisterResponse{statusCode=" + statusCode + ", body=" + body + '}';
+    }
+}
@@ -1,32 +1,77 @@
 package com.mengwangbao.xiu2.register;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mengwangbao.xiu2.util.MerkleTree;
 import com.mengwangbao.xiu2.util.SignatureParamBuilder;
 import com.mengwangbao.xiu2.util.Ed25519Utils;
+import com.mengwangbao.xiu2.util.ObjectMapperHolder;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 设备注册SDK类
  * 提供设备注册相关功能的客户端实现
  */
 public class RegisterSDK {
-    
+
+    private final CanonicalizerRegistry canonicalizers;
+
     /**
-     * ObjectMapper实例，用于JSON序列化
+     * 使用全局共享的规范化规则注册表
      */
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    public RegisterSDK() {
+        this(CanonicalizerRegistry.getDefault());
+    }
+
+    /**
+     * @param canonicalizers 按 schema_version 选择待签名串规则的注册表
+     */
+    public RegisterSDK(CanonicalizerRegistry canonicalizers) {
+        if (canonicalizers == null) {
+            throw new IllegalArgumentException("canonicalizers 不能为空");
+        }
+        this.canonicalizers = canonicalizers;
+    }
 
     /**
      * 根据DeviceRegisterRequest获取参数拼接字符串
+     * 按请求的 schema_version 选择已编译的规范化规则，未注册的版本回退到通用的 {@link SignatureParamBuilder}
      * @param request 设备注册请求对象
      * @return 参数拼接后的字符串
      * @throws JsonProcessingException 当JSON处理失败时
      */
     public String buildSignString(DeviceRegisterRequest request) throws JsonProcessingException {
+        Canonicalizer canonicalizer = canonicalizers.get(request.getSchemaVersion());
+        if (canonicalizer != null) {
+            return canonicalizer.canonicalize(request);
+        }
         return SignatureParamBuilder.buildSignString(request.toMap());
     }
 
+    /**
+     * 校验请求字段格式，建议在签名前（客户端）或验签前（服务端）调用
+     * @param request 设备注册请求对象
+     * @return 错误码位图，{@link RequestValidator#VALID} 表示全部合法
+     * @see RequestValidator
+     */
+    public int validateRequest(DeviceRegisterRequest request) {
+        return RequestValidator.validate(request);
+    }
+
+    /**
+     * 为设备创建待签名串模板，适用于同一设备反复注册、仅 timestamp 和 nonce 变化的场景
+     * @param request 设备注册请求对象
+     * @return 待签名串模板（非线程安全）
+     * @throws IllegalArgumentException 当请求的 schema_version 在本实例的注册表中不按通用规则签名时，
+     *                                  此时应使用 {@link #buildSignString(DeviceRegisterRequest)}
+     * @see SignTemplate
+     */
+    public SignTemplate prepareSignTemplate(DeviceRegisterRequest request) {
+        return new SignTemplate(request, canonicalizers);
+    }
+
     /**
      * 根据拼接串和私钥获取签名
      * @param message 拼接后的字符串
@@ -52,6 +97,108 @@ public class RegisterSDK {
         return Ed25519Utils.verifySignature(messageBytes, signature, publicKeyPem);
     }
     
+    /**
+     * 批量签名：以各请求的待签名串构建 Merkle 树，只对根哈希签名一次
+     * @param requests 设备注册请求列表，不能为空
+     * @param privateKeyPem 私钥PEM格式的字符串
+     * @return 批量注册信封
+     * @throws Exception 当签名失败时
+     * @see BatchRegisterEnvelope
+     */
+    public BatchRegisterEnvelope signBatch(List<DeviceRegisterRequest> requests, String privateKeyPem) throws Exception {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("批量请求不能为空");
+        }
+        byte[] root = MerkleTree.rootHash(leafHashes(requests));
+        String signature = Ed25519Utils.signMessage(batchSignMessage(root, requests.size()), privateKeyPem);
+        return new BatchRegisterEnvelope(new ArrayList<>(requests), MerkleTree.toHex(root), signature);
+    }
+
+    /**
+     * 验证整批请求：重新计算 Merkle 根哈希并做一次验签
+     * @param envelope 批量注册信封
+     * @param publicKeyPem 公钥PEM格式的字符串
+     * @return true表示整批请求均未被篡改且签名有效
+     * @throws Exception 当验证过程中发生错误时
+     */
+    public boolean verifyBatch(BatchRegisterEnvelope envelope, String publicKeyPem) throws Exception {
+        List<DeviceRegisterRequest> requests = envelope.getRequests();
+        if (requests == null || requests.isEmpty() || envelope.getRootHash() == null || envelope.getSignature() == null) {
+            return false;
+        }
+        byte[] root = MerkleTree.rootHash(leafHashes(requests));
+        if (!MessageDigest.isEqual(root, decodeRootHash(envelope.getRootHash()))) {
+            return false;
+        }
+        return Ed25519Utils.verifySignature(batchSignMessage(root, requests.size()), envelope.getSignature(), publicKeyPem);
+    }
+
+    /**
+     * 为批内第 index 个请求生成包含证明
+     * @param envelope 批量注册信封
+     * @param index 请求下标
+     * @return 包含证明
+     * @throws JsonProcessingException 当JSON处理失败时
+     */
+    public BatchInclusionProof createInclusionProof(BatchRegisterEnvelope envelope, int index) throws JsonProcessingException {
+        List<byte[]> leaves = leafHashes(envelope.getRequests());
+        List<byte[]> path = MerkleTree.inclusionProof(leaves, index);
+        return new BatchInclusionProof(index, leaves.size(), MerkleTree.toHexList(path),
+                envelope.getRootHash(), envelope.getSignature());
+    }
+
+    /**
+     * 验证单个请求属于某个已签名的批次
+     * @param request 设备注册请求对象
+     * @param proof 包含证明
+     * @param publicKeyPem 公钥PEM格式的字符串
+     * @return true表示请求属于该批次且批次签名有效
+     * @throws Exception 当验证过程中发生错误时
+     */
+    public boolean verifyInclusionProof(DeviceRegisterRequest request, BatchInclusionProof proof, String publicKeyPem) throws Exception {
+        if (proof.getAuditPath() == null || proof.getRootHash() == null || proof.getSignature() == null) {
+            return false;
+        }
+        byte[] leaf = MerkleTree.leafHash(buildSignString(request).getBytes(StandardCharsets.UTF_8));
+        byte[] root;
+        try {
+            root = MerkleTree.rootFromInclusionProof(leaf, proof.getIndex(), proof.getBatchSize(),
+                    MerkleTree.fromHexList(proof.getAuditPath()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (root == null || !MessageDigest.isEqual(root, decodeRootHash(proof.getRootHash()))) {
+            return false;
+        }
+        return Ed25519Utils.verifySignature(batchSignMessage(root, proof.getBatchSize()), proof.getSignature(), publicKeyPem);
+    }
+
+    private List<byte[]> leafHashes(List<DeviceRegisterRequest> requests) throws JsonProcessingException {
+        List<byte[]> leaves = new ArrayList<>(requests.size());
+        for (DeviceRegisterRequest request : requests) {
+            leaves.add(MerkleTree.leafHash(buildSignString(request).getBytes(StandardCharsets.UTF_8)));
+        }
+        return leaves;
+    }
+
+    /**
+     * 根哈希的十六进制格式不合法时返回空数组，使比较失败
+     */
+    private static byte[] decodeRootHash(String rootHash) {
+        try {
+            return MerkleTree.fromHex(rootHash);
+        } catch (IllegalArgumentException e) {
+            return new byte[0];
+        }
+    }
+
+    /**
+     * 批量签名的消息，包含批大小，与单个请求的待签名串（总含 timestamp 字段）不会重合
+     */
+    static byte[] batchSignMessage(byte[] root, int batchSize) {
+        return ("batch_root=" + MerkleTree.toHex(root) + "&batch_size=" + batchSize).getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * 将DeviceRegisterRequest对象序列化为JSON字符串
      * @param request 设备注册请求对象
@@ -59,7 +206,38 @@ public class RegisterSDK {
      * @throws JsonProcessingException 当JSON序列化失败时
      */
     public String serializeRequestToJson(DeviceRegisterRequest request) throws JsonProcessingException {
-        return objectMapper.writeValueAsString(request);
+        return ObjectMapperHolder.get().writeValueAsString(request);
+    }
+
+    /**
+     * 将DeviceRegisterRequest对象编码为紧凑二进制格式，可作为JSON的替代传输格式
+     * @param request 设备注册请求对象
+     * @return 二进制报文
+     * @throws IllegalArgumentException 当 device_sn 或 nonce 为空、或字段超过最大长度时
+     * @see BinaryRequestCodec
+     */
+    public byte[] serializeRequestToBinary(DeviceRegisterRequest request) {
+        return BinaryRequestCodec.encode(request);
+    }
+
+    /**
+     * 直接从紧凑二进制报文获取参数拼接字符串，与对解码后的请求调用 {@link #buildSignString(DeviceRegisterRequest)} 结果一致
+     * @param data 二进制报文
+     * @return 参数拼接后的字符串
+     * @throws IllegalArgumentException 当报文格式不合法时
+     */
+    public String buildSignString(byte[] data) {
+        return BinaryRequestCodec.buildSignString(data, canonicalizers);
+    }
+
+    /**
+     * 将紧凑二进制报文解码为DeviceRegisterRequest对象
+     * @param data 二进制报文
+     * @return 设备注册请求对象
+     * @throws IllegalArgumentException 当报文格式不合法时
+     */
+    public DeviceRegisterRequest deserializeRequestFromBinary(byte[] data) {
+        return BinaryRequestCodec.decode(data);
     }
 
 }
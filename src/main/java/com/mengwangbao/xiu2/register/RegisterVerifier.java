@@ -0,0 +1,172 @@
+package com.mengwangbao.xiu2.register;
+
+import com.mengwangbao.xiu2.util.DeviceRateLimiter;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 服务端注册请求校验器
+ * <p>
+ * 按开销从低到高依次执行：
+ * <ol>
+ *     <li>字段格式校验（{@link RequestValidator}），拒绝畸形请求</li>
+ *     <li>按 device_sn 准入控制（{@link DeviceRateLimiter}，可选），拒绝陷入重试循环的设备</li>
+ *     <li>Ed25519 验签</li>
+ *     <li>防重放检查（{@link NonceWindow}，可选），只记录验签通过的 nonce，伪造请求无法污染窗口</li>
+ *     <li>写入注册日志（{@link RegistrationJournal}，可选），默认等待记录落盘后才返回 {@link Result#ACCEPTED}；
+ *     写入失败时撤销已记录的 nonce，设备重试不会被误判为重放</li>
+ * </ol>
+ * 前两步都不涉及椭圆曲线运算，异常流量在进入验签前即被拦截。线程安全。
+ */
+public class RegisterVerifier {
+
+    /**
+     * 校验结果
+     */
+    public enum Result {
+        /**
+         * 校验通过
+         */
+        ACCEPTED,
+        /**
+         * 字段格式错误
+         */
+        INVALID_FIELDS,
+        /**
+         * 设备请求过于频繁，被限流
+         */
+        THROTTLED,
+        /**
+         * 签名无效
+         */
+        INVALID_SIGNATURE,
+        /**
+         * 签名有效，但 nonce 已使用过或时间戳超出防重放窗口
+         */
+        REPLAYED
+    }
+
+    private final Ed25519PublicKeyParameters publicKey;
+    private final RegisterSDK registerSDK = new RegisterSDK();
+
+    private volatile boolean validateFields = true;
+    private volatile boolean awaitDurable = true;
+    private volatile DeviceRateLimiter rateLimiter;
+    private volatile NonceWindow nonceWindow;
+    private volatile RegistrationJournal journal;
+
+    /**
+     * @param publicKeyPem 验签公钥PEM格式的字符串
+     * @throws Exception 当公钥格式不合法时
+     */
+    public RegisterVerifier(String publicKeyPem) throws Exception {
+        this.publicKey = Ed25519Utils.decodePublicKeyFromPem(publicKeyPem);
+    }
+
+    /**
+     * 是否在验签前校验字段格式，默认开启
+     */
+    public void setValidateFields(boolean validateFields) {
+        this.validateFields = validateFields;
+    }
+
+    /**
+     * 设置按设备限流器，为 null 时不限流
+     */
+    public void setRateLimiter(DeviceRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public DeviceRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * 设置防重放窗口，为 null 时不检查重放
+     */
+    public void setNonceWindow(NonceWindow nonceWindow) {
+        this.nonceWindow = nonceWindow;
+    }
+
+    /**
+     * 设置注册日志，校验通过的请求会追加到日志中，为 null 时不记录
+     */
+    public void setJournal(RegistrationJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * 返回 {@link Result#ACCEPTED} 前是否等待日志记录落盘，默认开启
+     * <p>
+     * 同时等待的请求共享一次 force（见 {@link RegistrationJournal#awaitDurable(long)}）；
+     * 关闭后记录最迟在日志的持久化延迟内落盘，进程崩溃时可能丢失这段时间内已返回 ACCEPTED 的记录。
+     */
+    public void setAwaitDurable(boolean awaitDurable) {
+        this.awaitDurable = awaitDurable;
+    }
+
+    /**
+     * 校验注册请求
+     *
+     * @param request 设备注册请求对象
+     * @param signature Base64编码的签名
+     * @return 校验结果
+     * @throws UncheckedIOException 当写入注册日志或等待落盘失败时
+     */
+    public Result verify(DeviceRegisterRequest request, String signature) {
+        if (validateFields && RequestValidator.validate(request) != RequestValidator.VALID) {
+            return Result.INVALID_FIELDS;
+        }
+
+        DeviceRateLimiter limiter = rateLimiter;
+        if (limiter != null && request.getDeviceSn() != null && !limiter.tryAcquire(request.getDeviceSn())) {
+            return Result.THROTTLED;
+        }
+
+        if (signature == null || signature.isEmpty()) {
+            return Result.INVALID_SIGNATURE;
+        }
+        try {
+            byte[] message = registerSDK.buildSignString(request).getBytes(StandardCharsets.UTF_8);
+            if (!Ed25519Utils.verifySignature(message, signature, publicKey)) {
+                return Result.INVALID_SIGNATURE;
+            }
+        } catch (Exception e) {
+            // Base64 格式错误、签名长度错误等
+            return Result.INVALID_SIGNATURE;
+        }
+
+        NonceWindow window = nonceWindow;
+        if (window != null && !window.checkAndRecord(request.getDeviceSn(), request.getNonce(), request.getTimestamp())) {
+            return Result.REPLAYED;
+        }
+
+        RegistrationJournal currentJournal = journal;
+        if (currentJournal != null) {
+            try {
+                long sequence = currentJournal.append(request, signature);
+                if (awaitDurable) {
+                    currentJournal.awaitDurable(sequence);
+                }
+            } catch (IOException e) {
+                forgetNonce(window, request);
+                throw new UncheckedIOException("写入注册日志失败", e);
+            } catch (RuntimeException e) {
+                // 例如关闭字段校验时 device_sn 超出记录容量
+                forgetNonce(window, request);
+                throw e;
+            }
+        }
+        return Result.ACCEPTED;
+    }
+
+    private static void forgetNonce(NonceWindow window, DeviceRegisterRequest request) {
+        if (window != null) {
+            window.remove(request.getDeviceSn(), request.getNonce(), request.getTimestamp());
+        }
+    }
+}
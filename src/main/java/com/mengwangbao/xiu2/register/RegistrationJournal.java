@@ -0,0 +1,571 @@
+package com.mengwangbao.xiu2.register;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 只追加的注册日志
+ * <p>
+ * 服务端每接受一个注册请求就追加一条定长记录（device_sn、timestamp、nonce、签名），用于审计和重启后恢复防重放窗口。
+ * 记录写入内存映射的段文件（{@code journal-<起始序号>.seg}），追加只是一次内存拷贝；
+ * 后台线程按组提交（group commit）批量调用 {@link MappedByteBuffer#force()}：
+ * <ul>
+ *     <li>{@link #append} 不等待落盘，记录最迟在 durabilityLatencyMillis 后持久化</li>
+ *     <li>{@link #awaitDurable(long)} 立即唤醒后台线程，同一时刻等待的多个调用方共享一次 force</li>
+ * </ul>
+ * 段写满后滚动到新段。记录布局（256 字节，大端）：
+ * <pre>
+ *   0  CRC32(4..256)   4  版本(1)   5  device_sn 长度(1)   6  nonce 长度(1)   7  保留(1)
+ *   8  timestamp(8)   16  写入时间(8)   24  签名(64)   88  nonce(64)   152  device_sn(64)   216  保留(40)
+ * </pre>
+ * 全零或 CRC 不匹配的记录视为日志末尾（未写入或崩溃时写了一半），重新打开时从该位置继续追加。
+ * 多页映射的 force 不保证按页顺序写盘，崩溃后末尾之后仍可能残留完整但从未确认的记录，
+ * 因此重新打开时会先把末尾之后的槽位清零并落盘，避免新记录覆盖残缺记录后把它们重新接入日志。
+ * <p>
+ * force 失败后 {@link #append} 与 {@link #awaitDurable(long)} 都抛出 {@link IOException}，
+ * 后台线程继续按间隔重试，重试成功后恢复正常。
+ * <p>
+ * 线程安全。
+ */
+public class RegistrationJournal implements Closeable {
+
+    public static final int RECORD_SIZE = 256;
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 65536;
+    public static final long DEFAULT_DURABILITY_LATENCY_MILLIS = 10;
+
+    static final int MAX_FIELD_BYTES = 64;
+    static final int SIGNATURE_BYTES = 64;
+
+    private static final byte RECORD_VERSION = 1;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_SN_LENGTH = 5;
+    private static final int OFFSET_NONCE_LENGTH = 6;
+    private static final int OFFSET_TIMESTAMP = 8;
+    private static final int OFFSET_APPEND_MILLIS = 16;
+    private static final int OFFSET_SIGNATURE = 24;
+    private static final int OFFSET_NONCE = 88;
+    private static final int OFFSET_DEVICE_SN = 152;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * 日志中的一条记录
+     */
+    public static class Entry {
+        private final long sequence;
+        private final String deviceSn;
+        private final long timestamp;
+        private final String nonce;
+        private final byte[] signature;
+        private final long appendMillis;
+
+        Entry(long sequence, String deviceSn, long timestamp, String nonce, byte[] signature, long appendMillis) {
+            this.sequence = sequence;
+            this.deviceSn = deviceSn;
+            this.timestamp = timestamp;
+            this.nonce = nonce;
+            this.signature = signature;
+            this.appendMillis = appendMillis;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public String getDeviceSn() {
+            return deviceSn;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getNonce() {
+            return nonce;
+        }
+
+        /**
+         * Base64 编码的签名
+         */
+        public String getSignature() {
+            return Base64.getEncoder().encodeToString(signature);
+        }
+
+        /**
+         * 写入日志的时间（毫秒）
+         */
+        public long getAppendMillis() {
+            return appendMillis;
+        }
+    }
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final long durabilityLatencyMillis;
+    private final Consumer<MappedByteBuffer> forcer;
+
+    /**
+     * 以下字段由 this 保护
+     */
+    private MappedByteBuffer current;
+    private long currentBaseSequence;
+    private int currentCapacity;
+    private long nextSequence;
+    private final List<MappedByteBuffer> rolledSegments = new ArrayList<>();
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * 以下字段由 flushMonitor 保护（flushFailure 另可无锁读取）
+     */
+    private final Object flushMonitor = new Object();
+    private boolean flushRequested;
+    /**
+     * close() 已停止后台线程并完成最后一次 flush，此后 durableSequence 不会再增长
+     */
+    private boolean shutdownComplete;
+    private volatile IOException flushFailure;
+
+    private volatile long durableSequence;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    /**
+     * 使用默认段大小和持久化延迟打开日志
+     *
+     * @param directory 段文件目录，不存在时创建
+     * @throws IOException 当目录或段文件无法访问时
+     */
+    public RegistrationJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_RECORDS_PER_SEGMENT, DEFAULT_DURABILITY_LATENCY_MILLIS);
+    }
+
+    /**
+     * 打开日志，已有段文件时从最后一条有效记录之后继续追加
+     *
+     * @param directory 段文件目录，不存在时创建
+     * @param recordsPerSegment 新建段文件的记录数
+     * @param durabilityLatencyMillis 后台 force 的间隔，即 {@link #append} 的记录最迟多久落盘
+     * @throws IOException 当目录或段文件无法访问时
+     */
+    public RegistrationJournal(Path directory, int recordsPerSegment, long durabilityLatencyMillis) throws IOException {
+        this(directory, recordsPerSegment, durabilityLatencyMillis, MappedByteBuffer::force);
+    }
+
+    /**
+     * @param forcer 把映射缓冲区写回磁盘的函数，测试中可注入以模拟 force 失败
+     */
+    RegistrationJournal(Path directory, int recordsPerSegment, long durabilityLatencyMillis,
+                        Consumer<MappedByteBuffer> forcer) throws IOException {
+        if (recordsPerSegment <= 0 || (long) recordsPerSegment * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("recordsPerSegment 超出范围: " + recordsPerSegment);
+        }
+        if (durabilityLatencyMillis <= 0) {
+            throw new IllegalArgumentException("durabilityLatencyMillis 必须大于0: " + durabilityLatencyMillis);
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.durabilityLatencyMillis = durabilityLatencyMillis;
+        this.forcer = forcer;
+        Files.createDirectories(directory);
+
+        List<Long> segments = listSegments();
+        if (segments.isEmpty()) {
+            openSegment(0, recordsPerSegment);
+        } else {
+            long base = segments.get(segments.size() - 1);
+            Path path = segmentPath(base);
+            int capacity = (int) (Files.size(path) / RECORD_SIZE);
+            MappedByteBuffer buffer = map(path, capacity, FileChannel.MapMode.READ_WRITE);
+            int used = countValidRecords(buffer, capacity);
+            if (used < capacity) {
+                clearTail(buffer, used, capacity);
+                current = buffer;
+                currentBaseSequence = base;
+                currentCapacity = capacity;
+                nextSequence = base + used;
+            } else {
+                openSegment(base + capacity, recordsPerSegment);
+            }
+        }
+        durableSequence = nextSequence;
+
+        flusher = new Thread(this::flushLoop, "registration-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 追加一条注册记录，不等待落盘
+     *
+     * @param request 已接受的注册请求
+     * @param signature Base64 编码的签名
+     * @return 记录序号，可传给 {@link #awaitDurable(long)}
+     * @throws IOException 当日志已关闭、上次落盘失败尚未恢复或滚动新段失败时
+     * @throws IllegalArgumentException 当字段超出记录容量时
+     */
+    public long append(DeviceRegisterRequest request, String signature) throws IOException {
+        return append(request.getDeviceSn(), request.getTimestamp(), request.getNonce(),
+                Base64.getDecoder().decode(signature));
+    }
+
+    /**
+     * 追加一条注册记录，不等待落盘
+     *
+     * @param deviceSn 设备序列号
+     * @param timestamp 请求的毫秒级时间戳
+     * @param nonce 防重放随机码
+     * @param signature 64 字节原始签名
+     * @return 记录序号
+     * @throws IOException 当日志已关闭、上次落盘失败尚未恢复或滚动新段失败时
+     */
+    public long append(String deviceSn, long timestamp, String nonce, byte[] signature) throws IOException {
+        byte[] sn = toBytes(deviceSn, "device_sn");
+        byte[] nonceBytes = toBytes(nonce, "nonce");
+        if (signature == null || signature.length != SIGNATURE_BYTES) {
+            throw new IllegalArgumentException("签名必须是 " + SIGNATURE_BYTES + " 字节");
+        }
+
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("日志已关闭");
+            }
+            IOException failure = flushFailure;
+            if (failure != null) {
+                throw new IOException("日志落盘失败，等待后台重试", failure);
+            }
+            if (nextSequence - currentBaseSequence >= currentCapacity) {
+                rolledSegments.add(current);
+                openSegment(nextSequence, recordsPerSegment);
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(scratch);
+            Arrays.fill(scratch, (byte) 0);
+            record.put(OFFSET_VERSION, RECORD_VERSION);
+            record.put(OFFSET_SN_LENGTH, (byte) sn.length);
+            record.put(OFFSET_NONCE_LENGTH, (byte) nonceBytes.length);
+            record.putLong(OFFSET_TIMESTAMP, timestamp);
+            record.putLong(OFFSET_APPEND_MILLIS, System.currentTimeMillis());
+            System.arraycopy(signature, 0, scratch, OFFSET_SIGNATURE, SIGNATURE_BYTES);
+            System.arraycopy(nonceBytes, 0, scratch, OFFSET_NONCE, nonceBytes.length);
+            System.arraycopy(sn, 0, scratch, OFFSET_DEVICE_SN, sn.length);
+            crc.reset();
+            crc.update(scratch, OFFSET_VERSION, RECORD_SIZE - OFFSET_VERSION);
+            record.putInt(0, (int) crc.getValue());
+
+            ByteBuffer target = current.duplicate();
+            target.position((int) (nextSequence - currentBaseSequence) * RECORD_SIZE);
+            target.put(scratch);
+            return nextSequence++;
+        }
+    }
+
+    /**
+     * 等待指定序号及之前的记录落盘，同时等待的调用方共享一次 force
+     *
+     * @param sequence {@link #append} 返回的序号
+     * @throws IOException 当 force 失败或日志已关闭时
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        if (durableSequence > sequence) {
+            return;
+        }
+        synchronized (flushMonitor) {
+            flushRequested = true;
+            flushMonitor.notifyAll();
+            while (durableSequence <= sequence) {
+                if (flushFailure != null) {
+                    throw new IOException("日志落盘失败", flushFailure);
+                }
+                if (shutdownComplete) {
+                    throw new IOException("日志已关闭，记录未落盘: " + sequence);
+                }
+                try {
+                    flushMonitor.wait(durabilityLatencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待日志落盘时被中断");
+                }
+            }
+        }
+    }
+
+    /**
+     * 已落盘的记录数（序号小于该值的记录均已持久化）
+     */
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * 下一条记录的序号，即已追加的记录总数
+     */
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * 从最近的段文件恢复防重放窗口
+     * <p>
+     * 请求被接受时其 timestamp 与写入时间相差不超过窗口，因此只需读取写入时间在最近两个窗口内的记录；
+     * 从最新的段向前扫描，遇到首条记录早于该时刻的段即停止，不读取更早的段。
+     *
+     * @param window 防重放窗口
+     * @return 恢复的记录数
+     * @throws IOException 当段文件无法读取时
+     */
+    public int rebuildNonceWindow(NonceWindow window) throws IOException {
+        long cutoff = System.currentTimeMillis() - 2 * window.getWindowMillis();
+        List<Long> segments = listSegments();
+        int restored = 0;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            List<Entry> entries = readSegment(segments.get(i));
+            for (Entry entry : entries) {
+                if (entry.getAppendMillis() >= cutoff && window.record(entry.getDeviceSn(), entry.getNonce(), entry.getTimestamp())) {
+                    restored++;
+                }
+            }
+            if (!entries.isEmpty() && entries.get(0).getAppendMillis() < cutoff) {
+                break;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * 按写入顺序遍历全部记录，用于审计
+     *
+     * @param consumer 记录处理函数
+     * @throws IOException 当段文件无法读取时
+     */
+    public void forEach(Consumer<Entry> consumer) throws IOException {
+        for (long base : listSegments()) {
+            readSegment(base).forEach(consumer);
+        }
+    }
+
+    /**
+     * 关闭日志：停止后台线程并把剩余记录落盘
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } finally {
+            synchronized (flushMonitor) {
+                shutdownComplete = true;
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            synchronized (flushMonitor) {
+                if (!flushRequested && !closed) {
+                    try {
+                        flushMonitor.wait(durabilityLatencyMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                flushRequested = false;
+            }
+            try {
+                flush();
+            } catch (IOException e) {
+                synchronized (flushMonitor) {
+                    flushFailure = e;
+                    flushMonitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        long target;
+        List<MappedByteBuffer> toForce;
+        MappedByteBuffer active;
+        synchronized (this) {
+            target = nextSequence;
+            if (target == durableSequence) {
+                return;
+            }
+            toForce = new ArrayList<>(rolledSegments);
+            active = current;
+        }
+        try {
+            for (MappedByteBuffer buffer : toForce) {
+                forcer.accept(buffer);
+            }
+            forcer.accept(active);
+        } catch (RuntimeException e) {
+            throw new IOException("force 失败", e);
+        }
+        synchronized (this) {
+            // 失败时保留已滚动的段，下次重试时再次 force
+            rolledSegments.subList(0, toForce.size()).clear();
+        }
+        durableSequence = target;
+        synchronized (flushMonitor) {
+            flushFailure = null;
+            flushMonitor.notifyAll();
+        }
+    }
+
+    private void openSegment(long baseSequence, int capacity) throws IOException {
+        current = map(segmentPath(baseSequence), capacity, FileChannel.MapMode.READ_WRITE);
+        currentBaseSequence = baseSequence;
+        currentCapacity = capacity;
+        nextSequence = baseSequence;
+    }
+
+    private List<Entry> readSegment(long baseSequence) throws IOException {
+        Path path = segmentPath(baseSequence);
+        int capacity = (int) (Files.size(path) / RECORD_SIZE);
+        MappedByteBuffer buffer = map(path, capacity, FileChannel.MapMode.READ_ONLY);
+        List<Entry> entries = new ArrayList<>();
+        byte[] record = new byte[RECORD_SIZE];
+        CRC32 checksum = new CRC32();
+        for (int slot = 0; slot < capacity; slot++) {
+            buffer.position(slot * RECORD_SIZE);
+            buffer.get(record);
+            if (!isValid(record, checksum)) {
+                break;
+            }
+            entries.add(decode(baseSequence + slot, record));
+        }
+        return entries;
+    }
+
+    private static int countValidRecords(MappedByteBuffer buffer, int capacity) {
+        byte[] record = new byte[RECORD_SIZE];
+        CRC32 checksum = new CRC32();
+        ByteBuffer view = buffer.duplicate();
+        for (int slot = 0; slot < capacity; slot++) {
+            view.position(slot * RECORD_SIZE);
+            view.get(record);
+            if (!isValid(record, checksum)) {
+                return slot;
+            }
+        }
+        return capacity;
+    }
+
+    /**
+     * 把 [from, capacity) 槽位中的非零内容清零，有改动时立即落盘
+     */
+    private static void clearTail(MappedByteBuffer buffer, int from, int capacity) {
+        byte[] record = new byte[RECORD_SIZE];
+        byte[] zeros = new byte[RECORD_SIZE];
+        ByteBuffer view = buffer.duplicate();
+        boolean dirty = false;
+        for (int slot = from; slot < capacity; slot++) {
+            view.position(slot * RECORD_SIZE);
+            view.get(record);
+            if (!Arrays.equals(record, zeros)) {
+                view.position(slot * RECORD_SIZE);
+                view.put(zeros);
+                dirty = true;
+            }
+        }
+        if (dirty) {
+            buffer.force();
+        }
+    }
+
+    private static boolean isValid(byte[] record, CRC32 checksum) {
+        if (record[OFFSET_VERSION] != RECORD_VERSION) {
+            return false;
+        }
+        checksum.reset();
+        checksum.update(record, OFFSET_VERSION, RECORD_SIZE - OFFSET_VERSION);
+        return ByteBuffer.wrap(record).getInt(0) == (int) checksum.getValue();
+    }
+
+    private static Entry decode(long sequence, byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        int snLength = record[OFFSET_SN_LENGTH] & 0xFF;
+        int nonceLength = record[OFFSET_NONCE_LENGTH] & 0xFF;
+        return new Entry(sequence,
+                new String(record, OFFSET_DEVICE_SN, snLength, StandardCharsets.UTF_8),
+                buffer.getLong(OFFSET_TIMESTAMP),
+                new String(record, OFFSET_NONCE, nonceLength, StandardCharsets.UTF_8),
+                Arrays.copyOfRange(record, OFFSET_SIGNATURE, OFFSET_SIGNATURE + SIGNATURE_BYTES),
+                buffer.getLong(OFFSET_APPEND_MILLIS));
+    }
+
+    private static byte[] toBytes(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(name + " 不能为空");
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD_BYTES) {
+            throw new IllegalArgumentException(name + " 超过 " + MAX_FIELD_BYTES + " 字节");
+        }
+        return bytes;
+    }
+
+    private static MappedByteBuffer map(Path path, int capacity, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(mode, 0, (long) capacity * RECORD_SIZE);
+        }
+    }
+
+    private Path segmentPath(long baseSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, baseSequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 目录中段文件的起始序号，升序
+     */
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // 忽略不符合命名规则的文件
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+}
@@ -0,0 +1,290 @@
+package com.mengwangbao.xiu2.register;
+
+/**
+ * 注册请求字段格式校验
+ * <p>
+ * 在生成签名或验签之前快速拒绝格式错误的请求，避免畸形请求消耗 Ed25519 运算。
+ * 全部为手写字符扫描，不使用正则、不分配对象，客户端与服务端均可使用。
+ * <p>
+ * {@link #validate(DeviceRegisterRequest)} 返回错误码位图，0 表示全部合法，
+ * 每个字段对应一个 {@code ERR_*} 位。可选字段为 null 或空字符串时视为未填写，不报错；
+ * device_sn、timestamp、nonce 为必填。
+ */
+public class RequestValidator {
+
+    public static final int VALID = 0;
+    public static final int ERR_SCHEMA_VERSION = 1;
+    public static final int ERR_MAC = 1 << 1;
+    public static final int ERR_IMEI = 1 << 2;
+    public static final int ERR_ICCID = 1 << 3;
+    public static final int ERR_HARDWARE_VERSION = 1 << 4;
+    public static final int ERR_SOFTWARE_VERSION = 1 << 5;
+    public static final int ERR_LONGITUDE = 1 << 6;
+    public static final int ERR_LATITUDE = 1 << 7;
+    public static final int ERR_DEVICE_SN = 1 << 8;
+    public static final int ERR_TIMESTAMP = 1 << 9;
+    public static final int ERR_NONCE = 1 << 10;
+
+    /**
+     * 错误位对应的字段名，下标为位序号
+     */
+    private static final String[] FIELD_NAMES = {
+            "schema_version", "mac", "imei", "iccid", "hardware_version", "software_version",
+            "longitude", "latitude", "device_sn", "timestamp", "nonce"
+    };
+
+    private static final int NONCE_LENGTH = 32;
+    private static final int MAX_DEVICE_SN_LENGTH = 64;
+    private static final int MAX_VERSION_PART_DIGITS = 5;
+    private static final int MAX_COORDINATE_FRACTION_DIGITS = 10;
+
+    /**
+     * 校验整个请求
+     *
+     * @param request 设备注册请求对象
+     * @return 错误码位图，{@link #VALID} 表示全部合法
+     */
+    public static int validate(DeviceRegisterRequest request) {
+        int errors = VALID;
+        if (!isEmpty(request.getSchemaVersion()) && !isValidSchemaVersion(request.getSchemaVersion())) {
+            errors |= ERR_SCHEMA_VERSION;
+        }
+        if (!isEmpty(request.getMac()) && !isValidMac(request.getMac())) {
+            errors |= ERR_MAC;
+        }
+        if (!isEmpty(request.getImei()) && !isValidImei(request.getImei())) {
+            errors |= ERR_IMEI;
+        }
+        if (!isEmpty(request.getIccid()) && !isValidIccid(request.getIccid())) {
+            errors |= ERR_ICCID;
+        }
+        if (!isEmpty(request.getHardwareVersion()) && !isValidVersion(request.getHardwareVersion())) {
+            errors |= ERR_HARDWARE_VERSION;
+        }
+        if (!isEmpty(request.getSoftwareVersion()) && !isValidVersion(request.getSoftwareVersion())) {
+            errors |= ERR_SOFTWARE_VERSION;
+        }
+        if (!isEmpty(request.getLongitude()) && !isValidLongitude(request.getLongitude())) {
+            errors |= ERR_LONGITUDE;
+        }
+        if (!isEmpty(request.getLatitude()) && !isValidLatitude(request.getLatitude())) {
+            errors |= ERR_LATITUDE;
+        }
+        if (!isValidDeviceSn(request.getDeviceSn())) {
+            errors |= ERR_DEVICE_SN;
+        }
+        if (request.getTimestamp() <= 0) {
+            errors |= ERR_TIMESTAMP;
+        }
+        if (!isValidNonce(request.getNonce())) {
+            errors |= ERR_NONCE;
+        }
+        return errors;
+    }
+
+    /**
+     * 将错误码位图转换为可读的字段列表，仅用于日志与排错
+     *
+     * @param errors {@link #validate(DeviceRegisterRequest)} 的返回值
+     * @return 例如 "mac,imei"，无错误时返回空字符串
+     */
+    public static String describe(int errors) {
+        StringBuilder sb = new StringBuilder();
+        for (int bit = 0; bit < FIELD_NAMES.length; bit++) {
+            if ((errors & (1 << bit)) != 0) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(FIELD_NAMES[bit]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * MAC 地址：XX:XX:XX:XX:XX:XX，X 为十六进制字符（大小写均可）
+     */
+    public static boolean isValidMac(CharSequence value) {
+        if (value == null || value.length() != 17) {
+            return false;
+        }
+        for (int i = 0; i < 17; i++) {
+            char c = value.charAt(i);
+            if (i % 3 == 2) {
+                if (c != ':') {
+                    return false;
+                }
+            } else if (!isHex(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * IMEI：15 位数字，末位为 Luhn 校验位
+     */
+    public static boolean isValidImei(CharSequence value) {
+        return value != null && value.length() == 15 && isLuhnValid(value);
+    }
+
+    /**
+     * ICCID：19 或 20 位数字，以 89（电信行业标识）开头，末位为 Luhn 校验位
+     */
+    public static boolean isValidIccid(CharSequence value) {
+        if (value == null || (value.length() != 19 && value.length() != 20)) {
+            return false;
+        }
+        return value.charAt(0) == '8' && value.charAt(1) == '9' && isLuhnValid(value);
+    }
+
+    /**
+     * 版本号：X.X.X，每段为 1~5 位数字
+     */
+    public static boolean isValidVersion(CharSequence value) {
+        return isDottedNumber(value, 3);
+    }
+
+    /**
+     * JSON 结构版本：X.X，每段为 1~5 位数字
+     */
+    public static boolean isValidSchemaVersion(CharSequence value) {
+        return isDottedNumber(value, 2);
+    }
+
+    /**
+     * 经度：十进制小数，取值范围 [-180, 180]
+     */
+    public static boolean isValidLongitude(CharSequence value) {
+        return isCoordinate(value, 180);
+    }
+
+    /**
+     * 纬度：十进制小数，取值范围 [-90, 90]
+     */
+    public static boolean isValidLatitude(CharSequence value) {
+        return isCoordinate(value, 90);
+    }
+
+    /**
+     * 设备序列号：1~64 位可见 ASCII 字符，不能包含签名串的分隔符 '&amp;' 和 '='
+     */
+    public static boolean isValidDeviceSn(CharSequence value) {
+        if (value == null || value.length() == 0 || value.length() > MAX_DEVICE_SN_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c <= ' ' || c > '~' || c == '&' || c == '=') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 防重放随机码：固定 32 位字母或数字
+     */
+    public static boolean isValidNonce(CharSequence value) {
+        if (value == null || value.length() != NONCE_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < NONCE_LENGTH; i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Luhn 校验（同时要求全部为数字）
+     */
+    static boolean isLuhnValid(CharSequence value) {
+        int sum = 0;
+        boolean doubleDigit = false;
+        for (int i = value.length() - 1; i >= 0; i--) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            int digit = c - '0';
+            if (doubleDigit) {
+                digit <<= 1;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubleDigit = !doubleDigit;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean isDottedNumber(CharSequence value, int parts) {
+        if (value == null) {
+            return false;
+        }
+        int seenParts = 1;
+        int digits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (digits == 0 || ++seenParts > parts) {
+                    return false;
+                }
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (++digits > MAX_VERSION_PART_DIGITS) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return seenParts == parts && digits > 0;
+    }
+
+    private static boolean isCoordinate(CharSequence value, int maxDegrees) {
+        if (value == null || value.length() == 0) {
+            return false;
+        }
+        int i = value.charAt(0) == '-' ? 1 : 0;
+        int integer = 0;
+        int integerDigits = 0;
+        for (; i < value.length() && value.charAt(i) != '.'; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9' || ++integerDigits > 3) {
+                return false;
+            }
+            integer = integer * 10 + (c - '0');
+        }
+        if (integerDigits == 0 || integer > maxDegrees) {
+            return false;
+        }
+        if (i == value.length()) {
+            return true;
+        }
+
+        // 小数部分
+        int fractionDigits = 0;
+        boolean fractionZero = true;
+        for (i++; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9' || ++fractionDigits > MAX_COORDINATE_FRACTION_DIGITS) {
+                return false;
+            }
+            fractionZero &= c == '0';
+        }
+        return fractionDigits > 0 && (integer < maxDegrees || fractionZero);
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
@@ -0,0 +1,171 @@
+package com.mengwangbao.xiu2.register;
+
+import java.util.Objects;
+
+/**
+ * 预编译的待签名串模板
+ * <p>
+ * 设备周期性重新注册时，除 timestamp 和 nonce 外其余字段（mac、imei、iccid、版本号、经纬度等）通常不变。
+ * 模板在创建时按签名规则（过滤空值、按字段名字典序排序）把静态字段预先拼接好并常驻在复用缓冲区中，
+ * 之后每次只需把 nonce 与 timestamp 拼接到对应位置，结果与
+ * {@link RegisterSDK#buildSignString(DeviceRegisterRequest)} 完全一致。
+ * <p>
+ * 字典序下的字段顺序为：device_sn, hardware_version, iccid, imei, latitude, longitude, mac,
+ * <b>nonce</b>, schema_version, software_version, <b>timestamp</b>，因此串结构为：
+ * <pre>
+ * [静态前缀&amp;] [nonce=...&amp;] [静态后缀&amp;] timestamp=...
+ * </pre>
+ * 模板只实现通用规则（全部字段、原样输出，即 schema 1.0 的规则）。创建时绑定一个规范化规则注册表，
+ * 请求的 schema_version 在该注册表中不按通用规则签名时（见 {@link CanonicalizerRegistry}），
+ * 创建、重建或生成待签名串都会抛出 {@link IllegalArgumentException}，应改用
+ * {@link RegisterSDK#buildSignString(DeviceRegisterRequest)}。
+ * 任一静态字段变化时模板会在下次调用 {@link #buildSignString(DeviceRegisterRequest)} 时自动重建。
+ * <p>
+ * 非线程安全：复用内部缓冲区，适用于每个设备（或每个线程）持有一个模板的场景。
+ */
+public class SignTemplate {
+
+    private String deviceSn;
+    private String hardwareVersion;
+    private String iccid;
+    private String imei;
+    private String latitude;
+    private String longitude;
+    private String mac;
+    private String schemaVersion;
+    private String softwareVersion;
+
+    private final CanonicalizerRegistry registry;
+
+    /**
+     * nonce 之后的静态部分，已包含结尾的 "timestamp="
+     */
+    private String suffix;
+
+    /**
+     * 复用缓冲区，前 prefixLength 个字符常驻 nonce 之前的静态部分
+     */
+    private final StringBuilder buffer = new StringBuilder(256);
+    private int prefixLength;
+
+    /**
+     * 根据请求的静态字段创建模板，按全局共享的规范化规则注册表检查 schema_version
+     *
+     * @param request 设备注册请求对象
+     * @throws IllegalArgumentException 当请求的 schema_version 不按通用规则签名时
+     */
+    public SignTemplate(DeviceRegisterRequest request) {
+        this(request, CanonicalizerRegistry.getDefault());
+    }
+
+    /**
+     * 根据请求的静态字段创建模板
+     *
+     * @param request 设备注册请求对象
+     * @param registry 生成待签名串时使用的规范化规则注册表，应与对应的 {@link RegisterSDK} 相同
+     * @throws IllegalArgumentException 当请求的 schema_version 在注册表中不按通用规则签名时
+     */
+    public SignTemplate(DeviceRegisterRequest request, CanonicalizerRegistry registry) {
+        if (registry == null) {
+            throw new IllegalArgumentException("registry 不能为空");
+        }
+        this.registry = registry;
+        compile(request);
+    }
+
+    /**
+     * 模板的静态字段是否与请求一致
+     *
+     * @param request 设备注册请求对象
+     * @return true 表示可直接复用模板
+     */
+    public boolean matches(DeviceRegisterRequest request) {
+        return Objects.equals(deviceSn, request.getDeviceSn())
+                && Objects.equals(hardwareVersion, request.getHardwareVersion())
+                && Objects.equals(iccid, request.getIccid())
+                && Objects.equals(imei, request.getImei())
+                && Objects.equals(latitude, request.getLatitude())
+                && Objects.equals(longitude, request.getLongitude())
+                && Objects.equals(mac, request.getMac())
+                && Objects.equals(schemaVersion, request.getSchemaVersion())
+                && Objects.equals(softwareVersion, request.getSoftwareVersion());
+    }
+
+    /**
+     * 生成请求的待签名串，静态字段发生变化时先重建模板
+     *
+     * @param request 设备注册请求对象
+     * @return 待签名串
+     * @throws IllegalArgumentException 当请求的 schema_version 不按通用规则签名时
+     */
+    public String buildSignString(DeviceRegisterRequest request) {
+        if (!matches(request)) {
+            compile(request);
+        }
+        return buildSignString(request.getTimestamp(), request.getNonce());
+    }
+
+    /**
+     * 使用模板中的静态字段和给定的动态字段生成待签名串
+     *
+     * @param timestamp 毫秒级时间戳
+     * @param nonce 防重放随机码，为空时不参与签名
+     * @return 待签名串
+     * @throws IllegalArgumentException 当模板的 schema_version 在注册表中已不按通用规则签名时
+     */
+    public String buildSignString(long timestamp, String nonce) {
+        checkGenericRules(schemaVersion);
+        buffer.setLength(prefixLength);
+        if (nonce != null && !nonce.isEmpty()) {
+            buffer.append("nonce=").append(nonce).append('&');
+        }
+        buffer.append(suffix).append(timestamp);
+        return buffer.toString();
+    }
+
+    private void compile(DeviceRegisterRequest request) {
+        checkGenericRules(request.getSchemaVersion());
+        deviceSn = request.getDeviceSn();
+        hardwareVersion = request.getHardwareVersion();
+        iccid = request.getIccid();
+        imei = request.getImei();
+        latitude = request.getLatitude();
+        longitude = request.getLongitude();
+        mac = request.getMac();
+        schemaVersion = request.getSchemaVersion();
+        softwareVersion = request.getSoftwareVersion();
+
+        buffer.setLength(0);
+        appendPair(buffer, "device_sn", deviceSn);
+        appendPair(buffer, "hardware_version", hardwareVersion);
+        appendPair(buffer, "iccid", iccid);
+        appendPair(buffer, "imei", imei);
+        appendPair(buffer, "latitude", latitude);
+        appendPair(buffer, "longitude", longitude);
+        appendPair(buffer, "mac", mac);
+        prefixLength = buffer.length();
+
+        StringBuilder suffixBuilder = new StringBuilder(64);
+        appendPair(suffixBuilder, "schema_version", schemaVersion);
+        appendPair(suffixBuilder, "software_version", softwareVersion);
+        suffix = suffixBuilder.append("timestamp=").toString();
+    }
+
+    /**
+     * 注册表可能在模板创建后替换规则，因此每次生成时都检查
+     */
+    private void checkGenericRules(String version) {
+        if (!registry.usesGenericRules(version)) {
+            throw new IllegalArgumentException("schema_version " + version + " 不按通用规则签名，不能使用待签名串模板");
+        }
+    }
+
+    /**
+     * 追加 "key=value&amp;"，空值不参与签名
+     */
+    private static void appendPair(StringBuilder sb, String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            sb.append(key).append('=').append(value).append('&');
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.mengwangbao.xiu2.register;
+
+/**
+ * 字段值编码器，在拼接到待签名串前转换非空的字符串字段值
+ */
+@FunctionalInterface
+public interface ValueEncoder {
+
+    /**
+     * 原样输出
+     */
+    ValueEncoder IDENTITY = value -> value;
+
+    /**
+     * 转为小写，例如规范化 MAC 地址
+     */
+    ValueEncoder LOWER_CASE = value -> value.toLowerCase(java.util.Locale.ROOT);
+
+    /**
+     * 转为大写
+     */
+    ValueEncoder UPPER_CASE = value -> value.toUpperCase(java.util.Locale.ROOT);
+
+    String encode(String value);
+}
@@ -0,0 +1,230 @@
+package com.mengwangbao.xiu2.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按设备序列号限流的无锁令牌桶
+ * <p>
+ * 用于验签之前的准入控制，防止单个陷入重试循环的设备占用大量验签 CPU。
+ * 每个设备一个令牌桶，存放在开放寻址（线性探测）表中：
+ * <ul>
+ *     <li>key：设备序列号的 64 位哈希，0 表示空槽</li>
+ *     <li>state：高 38 位为上次补充令牌的时间（相对创建时刻的毫秒数），低 26 位为令牌数（1 个令牌 = 1000 单位）</li>
+ * </ul>
+ * 同一槽位的 key 与 state 相邻存放在一个 {@link AtomicLongArray} 中（下标 2i 与 2i+1），一次查找通常只触及一条缓存行；
+ * 更新只用 CAS，不加锁、不分配对象，每个设备占用 16 字节。
+ * <p>
+ * 空闲超过 idleExpiryMillis 的槽位会被新设备直接复用（惰性过期，无需后台清理线程）。
+ * 构造时要求空闲过期时间不小于令牌桶从空到满的补充时间，因此过期的桶必然已满，复用不会改变任何设备的限流结果。
+ * 表满且探测范围内没有可复用槽位时放行请求（fail-open），并计入 {@link #getOverflowCount()}。
+ * <p>
+ * 哈希冲突或极端并发下两个设备可能短暂共用一个桶，属于可接受的近似。
+ */
+public class DeviceRateLimiter {
+
+    private static final int TOKEN_BITS = 26;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MAX_RELATIVE_MILLIS = (1L << (64 - TOKEN_BITS)) - 1;
+    private static final long UNITS_PER_TOKEN = 1000;
+    private static final int MAX_PROBES = 16;
+
+    /**
+     * 槽位 i 的 key 位于下标 2i，state 位于下标 2i+1
+     */
+    private final AtomicLongArray table;
+    private final int mask;
+
+    private final long capacityUnits;
+    private final double unitsPerMilli;
+    private final long idleExpiryMillis;
+    private final long baseMillis;
+
+    private final LongAdder admittedCount = new LongAdder();
+    private final LongAdder throttledCount = new LongAdder();
+    private final LongAdder overflowCount = new LongAdder();
+
+    /**
+     * 创建限流器
+     *
+     * @param expectedDevices 预计同时活跃的设备数，表容量为其 2 倍向上取 2 的幂
+     * @param permitsPerSecond 每个设备每秒补充的令牌数
+     * @param burst 令牌桶容量（允许的突发请求数）
+     * @param idleExpiryMillis 设备空闲多久后槽位可被复用，不能小于令牌桶补满所需时间
+     */
+    public DeviceRateLimiter(int expectedDevices, double permitsPerSecond, int burst, long idleExpiryMillis) {
+        if (expectedDevices <= 0 || expectedDevices > (1 << 28)) {
+            throw new IllegalArgumentException("expectedDevices 超出范围: " + expectedDevices);
+        }
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond 必须大于0: " + permitsPerSecond);
+        }
+        if (burst <= 0 || burst * UNITS_PER_TOKEN > TOKEN_MASK) {
+            throw new IllegalArgumentException("burst 超出范围: " + burst);
+        }
+
+        this.capacityUnits = burst * UNITS_PER_TOKEN;
+        // 每秒 permitsPerSecond 个令牌 = 每毫秒 permitsPerSecond 单位
+        this.unitsPerMilli = permitsPerSecond;
+        long refillMillis = (long) Math.ceil(capacityUnits / unitsPerMilli);
+        if (idleExpiryMillis < refillMillis) {
+            throw new IllegalArgumentException("idleExpiryMillis 不能小于令牌桶补满时间 " + refillMillis + "ms");
+        }
+        this.idleExpiryMillis = idleExpiryMillis;
+
+        int tableSize = Integer.highestOneBit(expectedDevices * 2 - 1) << 1;
+        this.table = new AtomicLongArray(tableSize * 2);
+        this.mask = tableSize - 1;
+        this.baseMillis = System.currentTimeMillis() - idleExpiryMillis - 1;
+    }
+
+    /**
+     * 尝试为设备获取一个令牌
+     *
+     * @param deviceSn 设备序列号
+     * @return true 表示放行，false 表示被限流
+     */
+    public boolean tryAcquire(CharSequence deviceSn) {
+        return tryAcquire(deviceSn, System.currentTimeMillis());
+    }
+
+    boolean tryAcquire(CharSequence deviceSn, long nowMillis) {
+        long now = Math.min(Math.max(nowMillis - baseMillis, 0), MAX_RELATIVE_MILLIS);
+        long key = hash(deviceSn);
+        int slot = findSlot(key, now);
+        if (slot < 0) {
+            overflowCount.increment();
+            admittedCount.increment();
+            return true;
+        }
+
+        while (true) {
+            long state = table.get(stateIndex(slot));
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+
+            long elapsed = now - last;
+            if (elapsed > 0) {
+                long added = (long) (elapsed * unitsPerMilli);
+                if (tokens + added >= capacityUnits) {
+                    tokens = capacityUnits;
+                    last = now;
+                } else if (added > 0) {
+                    tokens += added;
+                    // 只推进已换算成令牌的时间，保留不足一个单位的余量
+                    last += (long) (added / unitsPerMilli);
+                }
+            }
+
+            if (tokens < UNITS_PER_TOKEN) {
+                throttledCount.increment();
+                return false;
+            }
+            if (table.compareAndSet(stateIndex(slot), state, last << TOKEN_BITS | (tokens - UNITS_PER_TOKEN))) {
+                admittedCount.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 查找设备所在槽位，不存在时占用空槽或复用过期槽位
+     *
+     * @return 槽位下标，探测范围内无可用槽位时返回 -1
+     */
+    private int findSlot(long key, long now) {
+        int start = (int) (key ^ (key >>> 32)) & mask;
+        int expiredSlot = -1;
+        long expiredKey = 0;
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (start + probe) & mask;
+            long current = table.get(keyIndex(slot));
+            if (current == key) {
+                return slot;
+            }
+            if (current == 0) {
+                if (expiredSlot < 0 && table.compareAndSet(keyIndex(slot), 0, key)) {
+                    // 新槽位的 state 为 0（时间为基准时刻），首次访问即补满令牌
+                    return slot;
+                }
+                if (expiredSlot < 0) {
+                    // 被其他线程抢占，重新检查该槽位
+                    probe--;
+                    continue;
+                }
+                break;
+            }
+            if (expiredSlot < 0 && now - (table.get(stateIndex(slot)) >>> TOKEN_BITS) > idleExpiryMillis) {
+                expiredSlot = slot;
+                expiredKey = current;
+            }
+        }
+
+        // 复用过期槽位：过期意味着桶已满，state 无需重置，下次访问会按空闲时长补满
+        if (expiredSlot >= 0 && table.compareAndSet(keyIndex(expiredSlot), expiredKey, key)) {
+            return expiredSlot;
+        }
+        return -1;
+    }
+
+    private static int keyIndex(int slot) {
+        return slot << 1;
+    }
+
+    private static int stateIndex(int slot) {
+        return (slot << 1) + 1;
+    }
+
+    /**
+     * 设备序列号的 64 位哈希（FNV-1a + murmur3 finalizer），逐字符计算不分配对象，0 保留给空槽
+     */
+    static long hash(CharSequence value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 放行的请求数（包括表满时 fail-open 放行的请求）
+     */
+    public long getAdmittedCount() {
+        return admittedCount.sum();
+    }
+
+    /**
+     * 被限流的请求数
+     */
+    public long getThrottledCount() {
+        return throttledCount.sum();
+    }
+
+    /**
+     * 因表满无法跟踪而直接放行的请求数，持续增长说明 expectedDevices 设置过小
+     */
+    public long getOverflowCount() {
+        return overflowCount.sum();
+    }
+
+    /**
+     * 统计当前未过期（最近活跃）的设备数，需要遍历整张表，仅用于监控
+     */
+    public int countActiveDevices() {
+        long now = System.currentTimeMillis() - baseMillis;
+        int count = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (table.get(keyIndex(slot)) != 0 && now - (table.get(stateIndex(slot)) >>> TOKEN_BITS) <= idleExpiryMillis) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -25,9 +25,42 @@ import java.security.Security;
  */
 public class Ed25519Utils {
 
-    static {
-        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
-            Security.addProvider(new BouncyCastleProvider());
+    /**
+     * 签名、验签均直接使用 BouncyCastle 轻量级 API，不依赖 JCA Provider；
+     * 仅当调用方需要通过 JCA（KeyFactory、Signature 等）使用 "BC" 时才注册，且只注册一次
+     */
+    private static class ProviderHolder {
+        private static final boolean REGISTERED = register();
+
+        private static boolean register() {
+            if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+                Security.addProvider(new BouncyCastleProvider());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * RFC 8410 PKCS#8 私钥 DER 前缀：SEQUENCE { INTEGER 0, SEQUENCE { OID 1.3.101.112 }, OCTET STRING { OCTET STRING (32) } }
+     */
+    private static final byte[] ED25519_PKCS8_PREFIX = {
+            0x30, 0x2e, 0x02, 0x01, 0x00, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x04, 0x22, 0x04, 0x20
+    };
+
+    /**
+     * RFC 8410 SubjectPublicKeyInfo 公钥 DER 前缀：SEQUENCE { SEQUENCE { OID 1.3.101.112 }, BIT STRING (32) }
+     */
+    private static final byte[] ED25519_SPKI_PREFIX = {
+            0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00
+    };
+
+    /**
+     * 确保 BouncyCastle JCA Provider 已注册
+     * 仅在通过 JCA 接口使用 "BC" Provider 前需要调用
+     */
+    public static void ensureProviderRegistered() {
+        if (!ProviderHolder.REGISTERED) {
+            throw new IllegalStateException("BouncyCastle Provider 注册失败");
         }
     }
 
@@ -49,8 +82,14 @@ public class Ed25519Utils {
      * 使用私钥对消息进行签名
      */
     public static String signMessage(byte[] message, String privateKeyPem) throws Exception {
-        Ed25519PrivateKeyParameters privateKey = decodePrivateKeyFromPem(privateKeyPem);
+        return signMessage(message, decodePrivateKeyFromPem(privateKeyPem));
+    }
 
+    /**
+     * 使用已解析的私钥对消息进行签名
+     * 适用于私钥已提前解析并缓存的场景（如 KeyRegistry），避免每次签名重复解析 PEM
+     */
+    public static String signMessage(byte[] message, Ed25519PrivateKeyParameters privateKey) {
         org.bouncycastle.crypto.signers.Ed25519Signer signer = new org.bouncycastle.crypto.signers.Ed25519Signer();
         signer.init(true, privateKey);
         signer.update(message, 0, message.length);
@@ -63,8 +102,13 @@ public class Ed25519Utils {
      * 使用公钥验证签名
      */
     public static boolean verifySignature(byte[] message, String signatureB64, String publicKeyPem) throws Exception {
-        Ed25519PublicKeyParameters publicKey = decodePublicKeyFromPem(publicKeyPem);
+        return verifySignature(message, signatureB64, decodePublicKeyFromPem(publicKeyPem));
+    }
 
+    /**
+     * 使用已解析的公钥验证签名
+     */
+    public static boolean verifySignature(byte[] message, String signatureB64, Ed25519PublicKeyParameters publicKey) {
         byte[] signatureBytes = java.util.Base64.getDecoder().decode(signatureB64);
 
         org.bouncycastle.crypto.signers.Ed25519Signer verifier = new org.bouncycastle.crypto.signers.Ed25519Signer();
@@ -141,7 +185,12 @@ public class Ed25519Utils {
     /**
      * 从 PEM 格式解码私钥
      */
-    private static Ed25519PrivateKeyParameters decodePrivateKeyFromPem(String privateKeyPem) throws Exception {
+    public static Ed25519PrivateKeyParameters decodePrivateKeyFromPem(String privateKeyPem) throws Exception {
+        byte[] fixedLayoutKey = extractFixedLayoutKey(privateKeyPem, "PRIVATE KEY", ED25519_PKCS8_PREFIX);
+        if (fixedLayoutKey != null) {
+            return new Ed25519PrivateKeyParameters(fixedLayoutKey, 0);
+        }
+
         try (PemReader pemReader = new PemReader(new StringReader(privateKeyPem))) {
             PemObject pemObject = pemReader.readPemObject();
             if (pemObject == null) {
@@ -178,7 +227,12 @@ public class Ed25519Utils {
     /**
      * 从 PEM 格式解码公钥
      */
-    private static Ed25519PublicKeyParameters decodePublicKeyFromPem(String publicKeyPem) throws Exception {
+    public static Ed25519PublicKeyParameters decodePublicKeyFromPem(String publicKeyPem) throws Exception {
+        byte[] fixedLayoutKey = extractFixedLayoutKey(publicKeyPem, "PUBLIC KEY", ED25519_SPKI_PREFIX);
+        if (fixedLayoutKey != null) {
+            return new Ed25519PublicKeyParameters(fixedLayoutKey, 0);
+        }
+
         try (PemReader pemReader = new PemReader(new StringReader(publicKeyPem))) {
             PemObject pemObject = pemReader.readPemObject();
             if (pemObject == null) {
@@ -205,6 +259,40 @@ public class Ed25519Utils {
         }
     }
 
+    /**
+     * 快速路径：RFC 8410 的 Ed25519 密钥 DER 编码是固定前缀 + 32 字节密钥，
+     * 直接用 JDK 的 Base64 解码并比对前缀，避免加载 PemReader 及 ASN.1 解析相关类。
+     * 不符合固定格式（如带可选属性、公钥字段）时返回 null，由调用方走完整的 ASN.1 解析。
+     */
+    private static byte[] extractFixedLayoutKey(String pem, String type, byte[] prefix) {
+        if (pem == null) {
+            return null;
+        }
+        String header = "-----BEGIN " + type + "-----";
+        String footer = "-----END " + type + "-----";
+        int begin = pem.indexOf(header);
+        int end = pem.indexOf(footer);
+        if (begin < 0 || end < begin) {
+            return null;
+        }
+
+        byte[] der;
+        try {
+            der = java.util.Base64.getMimeDecoder().decode(pem.substring(begin + header.length(), end));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (der.length != prefix.length + 32) {
+            return null;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (der[i] != prefix[i]) {
+                return null;
+            }
+        }
+        return java.util.Arrays.copyOfRange(der, prefix.length, der.length);
+    }
+
     /**
      * 验证私钥格式
      */
@@ -0,0 +1,225 @@
+package com.mengwangbao.xiu2.util;
+
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 多租户私钥注册表
+ * 从目录加载 Ed25519 私钥（每个文件 {@code <keyId>.pem} 对应一个租户），
+ * 私钥只解析一次，并以不可变快照的形式通过 volatile 引用发布。
+ * <p>
+ * 签名线程读取快照无需加锁；密钥轮换（文件新增、修改、删除）由后台线程通过
+ * {@link WatchService} 感知，构建新快照后整体替换引用（写时复制），不会阻塞签名线程。
+ */
+public class KeyRegistry implements Closeable {
+
+    /**
+     * 私钥文件后缀，文件名去掉后缀即为 keyId
+     */
+    public static final String KEY_FILE_SUFFIX = ".pem";
+
+    private final Path directory;
+
+    /**
+     * 当前私钥快照，只读，每次变更整体替换
+     */
+    private volatile Map<String, Ed25519PrivateKeyParameters> keys = Collections.emptyMap();
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile boolean closed;
+
+    /**
+     * 创建注册表并立即加载目录下的全部私钥
+     *
+     * @param directory 私钥目录
+     * @throws IOException 当目录不可读时
+     */
+    public KeyRegistry(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("私钥目录不存在: " + directory);
+        }
+        this.directory = directory;
+        reload();
+    }
+
+    /**
+     * 获取已解析的私钥
+     *
+     * @param keyId 私钥标识（文件名去掉 .pem 后缀）
+     * @return 私钥，不存在时返回 null
+     */
+    public Ed25519PrivateKeyParameters getPrivateKey(String keyId) {
+        return keys.get(keyId);
+    }
+
+    /**
+     * 使用指定租户的私钥对消息进行签名
+     *
+     * @param keyId 私钥标识
+     * @param message 待签名消息
+     * @return Base64 编码的签名
+     */
+    public String signMessage(String keyId, byte[] message) {
+        Ed25519PrivateKeyParameters privateKey = keys.get(keyId);
+        if (privateKey == null) {
+            throw new IllegalArgumentException("未找到私钥: " + keyId);
+        }
+        return Ed25519Utils.signMessage(message, privateKey);
+    }
+
+    /**
+     * 当前已加载的全部 keyId
+     */
+    public Set<String> getKeyIds() {
+        return keys.keySet();
+    }
+
+    /**
+     * 重新扫描整个目录并发布新快照
+     * 解析失败的文件（例如正在写入中）保留旧私钥，不会导致该租户暂时不可用
+     *
+     * @throws IOException 当目录不可读时
+     */
+    public synchronized void reload() throws IOException {
+        Map<String, Ed25519PrivateKeyParameters> current = keys;
+        Map<String, Ed25519PrivateKeyParameters> next = new HashMap<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + KEY_FILE_SUFFIX)) {
+            for (Path file : stream) {
+                String keyId = toKeyId(file);
+                Ed25519PrivateKeyParameters privateKey = loadKey(file);
+                if (privateKey == null) {
+                    privateKey = current.get(keyId);
+                }
+                if (privateKey != null) {
+                    next.put(keyId, privateKey);
+                }
+            }
+        }
+
+        keys = Collections.unmodifiableMap(next);
+    }
+
+    /**
+     * 启动后台线程监听目录变化，实现私钥热更新
+     *
+     * @throws IOException 当无法注册目录监听时
+     */
+    public synchronized void startWatching() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("KeyRegistry 已关闭");
+        }
+        if (watchThread != null) {
+            return;
+        }
+
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        watchThread = new Thread(this::watchLoop, "xiu2-key-registry-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * 停止目录监听，已加载的私钥仍可继续使用
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+    }
+
+    private void watchLoop() {
+        while (!closed) {
+            WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            try {
+                for (WatchEvent<?> event : watchKey.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // 事件丢失，退化为全量扫描
+                        reload();
+                        continue;
+                    }
+                    Path file = directory.resolve((Path) event.context());
+                    if (file.getFileName().toString().endsWith(KEY_FILE_SUFFIX)) {
+                        applyChange(file, event.kind() == StandardWatchEventKinds.ENTRY_DELETE);
+                    }
+                }
+            } catch (IOException e) {
+                // 目录暂时不可读时保留当前快照，等待下一次事件
+            }
+
+            if (!watchKey.reset()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 应用单个文件的变更，基于当前快照复制出新快照后发布
+     */
+    private synchronized void applyChange(Path file, boolean deleted) {
+        String keyId = toKeyId(file);
+        Map<String, Ed25519PrivateKeyParameters> next = new HashMap<>(keys);
+
+        if (deleted || !Files.exists(file)) {
+            if (next.remove(keyId) == null) {
+                return;
+            }
+        } else {
+            Ed25519PrivateKeyParameters privateKey = loadKey(file);
+            if (privateKey == null) {
+                // 文件可能尚未写完，保留旧私钥，等待后续 MODIFY 事件
+                return;
+            }
+            next.put(keyId, privateKey);
+        }
+
+        keys = Collections.unmodifiableMap(next);
+    }
+
+    private static Ed25519PrivateKeyParameters loadKey(Path file) {
+        try {
+            String pem = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            return Ed25519Utils.decodePrivateKeyFromPem(pem);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String toKeyId(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.substring(0, fileName.length() - KEY_FILE_SUFFIX.length());
+    }
+}
@@ -0,0 +1,214 @@
+package com.mengwangbao.xiu2.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merkle 树工具类（SHA-256）
+ * 采用 RFC 9162（Certificate Transparency 2.0）第 2.1 节定义的树结构：
+ * <ul>
+ *     <li>叶子哈希：SHA-256(0x00 || 数据)</li>
+ *     <li>内部节点：SHA-256(0x01 || 左 || 右)</li>
+ *     <li>n 个叶子时，左子树包含小于 n 的最大 2 的幂个叶子，不需要填充</li>
+ * </ul>
+ * 叶子与内部节点使用不同前缀，防止第二原像攻击。
+ */
+public class MerkleTree {
+
+    /**
+     * SHA-256 哈希长度
+     */
+    public static final int HASH_LENGTH = 32;
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    /**
+     * 计算叶子哈希
+     */
+    public static byte[] leafHash(byte[] data) {
+        MessageDigest digest = sha256();
+        digest.update(LEAF_PREFIX);
+        digest.update(data);
+        return digest.digest();
+    }
+
+    /**
+     * 计算内部节点哈希
+     */
+    public static byte[] nodeHash(byte[] left, byte[] right) {
+        MessageDigest digest = sha256();
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    /**
+     * 计算根哈希
+     *
+     * @param leafHashes 叶子哈希列表，不能为空
+     * @return 根哈希
+     */
+    public static byte[] rootHash(List<byte[]> leafHashes) {
+        if (leafHashes == null || leafHashes.isEmpty()) {
+            throw new IllegalArgumentException("叶子列表不能为空");
+        }
+        return subtreeHash(leafHashes, 0, leafHashes.size());
+    }
+
+    /**
+     * 生成第 index 个叶子的包含证明（审计路径），顺序为从叶子到根
+     *
+     * @param leafHashes 叶子哈希列表
+     * @param index 叶子下标
+     * @return 审计路径
+     */
+    public static List<byte[]> inclusionProof(List<byte[]> leafHashes, int index) {
+        if (leafHashes == null || index < 0 || index >= leafHashes.size()) {
+            throw new IllegalArgumentException("叶子下标越界: " + index);
+        }
+        List<byte[]> path = new ArrayList<>();
+        appendPath(leafHashes, index, 0, leafHashes.size(), path);
+        return path;
+    }
+
+    /**
+     * 根据叶子哈希与审计路径还原根哈希（RFC 9162 第 2.1.3.2 节）
+     *
+     * @param leafHash 叶子哈希
+     * @param index 叶子下标
+     * @param treeSize 叶子总数
+     * @param proof 审计路径
+     * @return 还原出的根哈希，审计路径与下标、树大小不匹配时返回 null
+     */
+    public static byte[] rootFromInclusionProof(byte[] leafHash, long index, long treeSize, List<byte[]> proof) {
+        if (index < 0 || index >= treeSize || proof == null) {
+            return null;
+        }
+        long fn = index;
+        long sn = treeSize - 1;
+        byte[] r = leafHash;
+        for (byte[] p : proof) {
+            if (sn == 0 || p == null || p.length != HASH_LENGTH) {
+                return null;
+            }
+            if ((fn & 1) == 1 || fn == sn) {
+                r = nodeHash(p, r);
+                while ((fn & 1) == 0 && fn != 0) {
+                    fn >>= 1;
+                    sn >>= 1;
+                }
+            } else {
+                r = nodeHash(r, p);
+            }
+            fn >>= 1;
+            sn >>= 1;
+        }
+        return sn == 0 ? r : null;
+    }
+
+    /**
+     * 判断审计路径能否证明叶子属于给定根哈希的树
+     */
+    public static boolean verifyInclusion(byte[] leafHash, long index, long treeSize, List<byte[]> proof, byte[] rootHash) {
+        byte[] computed = rootFromInclusionProof(leafHash, index, treeSize, proof);
+        return computed != null && MessageDigest.isEqual(computed, rootHash);
+    }
+
+    private static byte[] subtreeHash(List<byte[]> leafHashes, int from, int to) {
+        int n = to - from;
+        if (n == 1) {
+            return leafHashes.get(from);
+        }
+        int k = largestPowerOfTwoBelow(n);
+        return nodeHash(subtreeHash(leafHashes, from, from + k), subtreeHash(leafHashes, from + k, to));
+    }
+
+    private static void appendPath(List<byte[]> leafHashes, int index, int from, int to, List<byte[]> path) {
+        int n = to - from;
+        if (n == 1) {
+            return;
+        }
+        int k = largestPowerOfTwoBelow(n);
+        if (index < from + k) {
+            appendPath(leafHashes, index, from, from + k, path);
+            path.add(subtreeHash(leafHashes, from + k, to));
+        } else {
+            appendPath(leafHashes, index, from + k, to, path);
+            path.add(subtreeHash(leafHashes, from, from + k));
+        }
+    }
+
+    /**
+     * 小于 n 的最大 2 的幂（n &gt; 1）
+     */
+    private static int largestPowerOfTwoBelow(int n) {
+        return Integer.highestOneBit(n - 1);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支持 SHA-256", e);
+        }
+    }
+
+    /**
+     * 十六进制编码（小写）
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = Character.forDigit((bytes[i] >> 4) & 0x0F, 16);
+            chars[i * 2 + 1] = Character.forDigit(bytes[i] & 0x0F, 16);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 十六进制解码
+     *
+     * @throws IllegalArgumentException 当格式不合法时
+     */
+    public static byte[] fromHex(String hex) {
+        if (hex == null || (hex.length() & 1) != 0) {
+            throw new IllegalArgumentException("十六进制字符串长度非法");
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("十六进制字符串包含非法字符");
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    /**
+     * 审计路径的十六进制表示，便于 JSON 传输
+     */
+    public static List<String> toHexList(List<byte[]> hashes) {
+        List<String> result = new ArrayList<>(hashes.size());
+        for (byte[] hash : hashes) {
+            result.add(toHex(hash));
+        }
+        return result;
+    }
+
+    /**
+     * 从十六进制列表还原审计路径
+     */
+    public static List<byte[]> fromHexList(List<String> hexes) {
+        List<byte[]> result = new ArrayList<>(hexes.size());
+        for (String hex : hexes) {
+            result.add(fromHex(hex));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package com.mengwangbao.xiu2.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * SDK 共享的 ObjectMapper
+ * 通过静态内部类延迟初始化，只有真正用到 JSON 时才创建；
+ * ObjectMapper 配置完成后线程安全，全局共用一个实例即可。
+ */
+public class ObjectMapperHolder {
+
+    private static class Holder {
+        private static final ObjectMapper INSTANCE = new ObjectMapper();
+    }
+
+    /**
+     * 获取共享的 ObjectMapper，首次调用时创建
+     *
+     * @return ObjectMapper 实例，调用方不应修改其配置
+     */
+    public static ObjectMapper get() {
+        return Holder.INSTANCE;
+    }
+}
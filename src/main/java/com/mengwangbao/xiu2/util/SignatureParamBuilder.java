@@ -1,6 +1,5 @@
 package com.mengwangbao.xiu2.util;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 import java.util.*;
@@ -15,8 +14,6 @@ import java.util.stream.Collectors;
  */
 public class SignatureParamBuilder {
 
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
-
     /**
      * 构建待签名的参数字符串
      *
@@ -117,7 +114,7 @@ public class SignatureParamBuilder {
 
         // 数组、List、Map 转JSON字符串（紧凑格式，无空格）
         if (value instanceof Collection || value instanceof Map || value.getClass().isArray()) {
-            return OBJECT_MAPPER.writeValueAsString(value);
+            return ObjectMapperHolder.get().writeValueAsString(value);
         }
 
         // 其他类型直接toString
@@ -133,7 +130,7 @@ public class SignatureParamBuilder {
      */
     public static String buildSignStringFromObject(Object object) throws JsonProcessingException {
         @SuppressWarnings("unchecked")
-        Map<String, Object> params = OBJECT_MAPPER.convertValue(object, Map.class);
+        Map<String, Object> params = ObjectMapperHolder.get().convertValue(object, Map.class);
         return buildSignString(params);
     }
 }
@@ -0,0 +1,128 @@
+package com.mengwangbao.xiu2;
+
+import com.mengwangbao.xiu2.register.DeviceRegisterRequest;
+import com.mengwangbao.xiu2.register.RegisterSDK;
+import com.mengwangbao.xiu2.register.TestRequests;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+import com.mengwangbao.xiu2.util.SignatureParamBuilder;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 热点路径的内存分配预算回归测试
+ * <p>
+ * 预热后用 {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} 测量当前线程每次操作分配的字节数，
+ * 超出预算即失败，防止后续改动在热点路径上重新引入逐次调用的临时对象。
+ * 预算取自 JDK 17 / HotSpot 上的实测值并留有余量（括号内为实测值）；
+ * 签名、验签的分配几乎全部来自 BouncyCastle 内部的曲线运算临时数组。
+ * 非 HotSpot JVM 或不支持线程分配统计时跳过。
+ */
+public class AllocationBudgetTest {
+
+    /**
+     * 编译后的待签名串规则（约 790 字节）
+     */
+    private static final long CANONICALIZE_BUDGET = 1024;
+
+    /**
+     * 通用 Map 待签名串规则（约 3.9 KB）
+     */
+    private static final long GENERIC_CANONICALIZE_BUDGET = 5 * 1024;
+
+    /**
+     * JSON 序列化（约 800 字节）
+     */
+    private static final long SERIALIZE_JSON_BUDGET = 1024;
+
+    /**
+     * 使用已解析私钥签名（约 23 KB）
+     */
+    private static final long SIGN_BUDGET = 28 * 1024;
+
+    /**
+     * 使用已解析公钥验签（约 104 KB）
+     */
+    private static final long VERIFY_BUDGET = 120 * 1024;
+
+    private static final int ROUNDS = 3;
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+    private static Object sink;
+
+    private final RegisterSDK registerSDK = new RegisterSDK();
+
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    @BeforeClass
+    public static void checkSupport() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("当前 JVM 不支持线程分配统计", bean instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue("当前 JVM 不支持线程分配统计", threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void testCanonicalizationBudget() throws Exception {
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        assertWithinBudget("RegisterSDK.buildSignString", CANONICALIZE_BUDGET, 20_000,
+                () -> registerSDK.buildSignString(request));
+        assertWithinBudget("SignatureParamBuilder.buildSignString", GENERIC_CANONICALIZE_BUDGET, 20_000,
+                () -> SignatureParamBuilder.buildSignString(request.toMap()));
+    }
+
+    @Test
+    public void testSerializeJsonBudget() throws Exception {
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        assertWithinBudget("RegisterSDK.serializeRequestToJson", SERIALIZE_JSON_BUDGET, 20_000,
+                () -> registerSDK.serializeRequestToJson(request));
+    }
+
+    @Test
+    public void testSignAndVerifyBudget() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        Ed25519PrivateKeyParameters privateKey = Ed25519Utils.decodePrivateKeyFromPem(keyPair.getPrivateKeyPem());
+        Ed25519PublicKeyParameters publicKey = Ed25519Utils.decodePublicKeyFromPem(keyPair.getPublicKeyPem());
+        byte[] message = registerSDK.buildSignString(TestRequests.sampleRequest()).getBytes(StandardCharsets.UTF_8);
+        String signature = Ed25519Utils.signMessage(message, privateKey);
+
+        assertWithinBudget("Ed25519Utils.signMessage", SIGN_BUDGET, 1_000,
+                () -> Ed25519Utils.signMessage(message, privateKey));
+        assertWithinBudget("Ed25519Utils.verifySignature(Ed25519PublicKeyParameters)", VERIFY_BUDGET, 1_000,
+                () -> Ed25519Utils.verifySignature(message, signature, publicKey));
+        assertWithinBudget("Ed25519Utils.verifySignature(PEM)", VERIFY_BUDGET, 1_000,
+                () -> Ed25519Utils.verifySignature(message, signature, keyPair.getPublicKeyPem()));
+    }
+
+    /**
+     * 预热后测量若干轮，取每次操作分配字节数的最小值与预算比较，排除 JIT 编译、类加载等一次性分配的干扰
+     */
+    private static void assertWithinBudget(String name, long budgetBytes, int iterations, Operation operation) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < iterations; i++) {
+            sink = operation.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++) {
+                sink = operation.run();
+            }
+            long after = threadMXBean.getThreadAllocatedBytes(threadId);
+            best = Math.min(best, (after - before) / iterations);
+        }
+        assertTrue(name + " 每次分配 " + best + " 字节，超出预算 " + budgetBytes + " 字节", best <= budgetBytes);
+    }
+}
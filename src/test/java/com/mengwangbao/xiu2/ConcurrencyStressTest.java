@@ -0,0 +1,206 @@
+package com.mengwangbao.xiu2;
+
+import com.mengwangbao.xiu2.register.CanonicalizerRegistry;
+import com.mengwangbao.xiu2.register.CompiledCanonicalizer;
+import com.mengwangbao.xiu2.register.DeviceRegisterRequest;
+import com.mengwangbao.xiu2.register.RegisterSDK;
+import com.mengwangbao.xiu2.register.SignTemplate;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+import com.mengwangbao.xiu2.util.ObjectMapperHolder;
+import com.mengwangbao.xiu2.util.SignatureParamBuilder;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 共享状态的并发正确性压力测试
+ * <p>
+ * 先在单线程中算出每个请求的期望结果（Ed25519 签名是确定性的，可以直接比对），
+ * 再由多个线程同时对同一批请求反复执行，任何线程得到不同结果即失败。
+ * 覆盖共享的 ObjectMapper、规范化规则注册表、公钥缓存、nonce 生成以及签名、验签路径。
+ */
+public class ConcurrencyStressTest {
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS = 64;
+    private static final int ROUNDS = 20;
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    @Test
+    public void testCanonicalizationUnderContention() throws Exception {
+        RegisterSDK registerSDK = new RegisterSDK();
+        List<DeviceRegisterRequest> requests = requests();
+        List<String> expected = new ArrayList<>();
+        for (DeviceRegisterRequest request : requests) {
+            expected.add(SignatureParamBuilder.buildSignString(request.toMap()));
+        }
+
+        runConcurrently(thread -> {
+            SignTemplate template = null;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < REQUESTS; i++) {
+                    // 各线程错开起始位置，使同一时刻访问不同请求
+                    int index = (i + thread * 7) % REQUESTS;
+                    DeviceRegisterRequest request = requests.get(index);
+                    assertEquals(expected.get(index), registerSDK.buildSignString(request));
+                    assertEquals(expected.get(index), SignatureParamBuilder.buildSignString(request.toMap()));
+                    if (template == null) {
+                        template = registerSDK.prepareSignTemplate(request);
+                    }
+                    assertEquals(expected.get(index), template.buildSignString(request));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testRegistryUpdatesDoNotDisturbReaders() throws Exception {
+        CanonicalizerRegistry registry = CanonicalizerRegistry.withDefaults();
+        RegisterSDK registerSDK = new RegisterSDK(registry);
+        List<DeviceRegisterRequest> requests = requests();
+        List<String> expected = new ArrayList<>();
+        for (DeviceRegisterRequest request : requests) {
+            expected.add(registerSDK.buildSignString(request));
+        }
+
+        runConcurrently(thread -> {
+            for (int round = 0; round < ROUNDS; round++) {
+                if (thread == 0) {
+                    registry.register(CompiledCanonicalizer.allFields("1." + (round + 1)));
+                    continue;
+                }
+                for (int i = 0; i < REQUESTS; i++) {
+                    assertEquals(expected.get(i), registerSDK.buildSignString(requests.get(i)));
+                }
+            }
+        });
+        assertEquals(ROUNDS + 1, registry.getSchemaVersions().size());
+    }
+
+    @Test
+    public void testSignAndVerifyUnderContention() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        Ed25519PrivateKeyParameters privateKey = Ed25519Utils.decodePrivateKeyFromPem(keyPair.getPrivateKeyPem());
+        Ed25519PublicKeyParameters publicKey = Ed25519Utils.decodePublicKeyFromPem(keyPair.getPublicKeyPem());
+        RegisterSDK registerSDK = new RegisterSDK();
+
+        List<DeviceRegisterRequest> requests = requests();
+        List<byte[]> messages = new ArrayList<>();
+        List<String> signatures = new ArrayList<>();
+        for (DeviceRegisterRequest request : requests) {
+            byte[] message = registerSDK.buildSignString(request).getBytes(StandardCharsets.UTF_8);
+            messages.add(message);
+            signatures.add(Ed25519Utils.signMessage(message, privateKey));
+        }
+
+        runConcurrently(thread -> {
+            for (int round = 0; round < 2; round++) {
+                for (int i = thread; i < REQUESTS; i += 2) {
+                    byte[] message = messages.get(i);
+                    String signature = signatures.get(i);
+                    assertEquals(signature, Ed25519Utils.signMessage(message, privateKey));
+                    assertEquals(signature, Ed25519Utils.signMessage(message, keyPair.getPrivateKeyPem()));
+                    assertTrue(Ed25519Utils.verifySignature(message, signature, publicKey));
+                    assertTrue(Ed25519Utils.verifySignature(message, signature, keyPair.getPublicKeyPem()));
+                    // 用相邻请求的签名验签必须失败
+                    assertFalse(Ed25519Utils.verifySignature(message, signatures.get((i + 1) % REQUESTS), publicKey));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testJsonRoundTripUnderContention() throws Exception {
+        RegisterSDK registerSDK = new RegisterSDK();
+        List<DeviceRegisterRequest> requests = requests();
+        List<String> expected = new ArrayList<>();
+        for (DeviceRegisterRequest request : requests) {
+            expected.add(registerSDK.serializeRequestToJson(request));
+        }
+
+        runConcurrently(thread -> {
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < REQUESTS; i++) {
+                    int index = (i + thread * 11) % REQUESTS;
+                    String json = registerSDK.serializeRequestToJson(requests.get(index));
+                    assertEquals(expected.get(index), json);
+                    DeviceRegisterRequest decoded = ObjectMapperHolder.get().readValue(json, DeviceRegisterRequest.class);
+                    assertEquals(expected.get(index), registerSDK.serializeRequestToJson(decoded));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testNonceGenerationUnderContention() throws Exception {
+        int perThread = 5_000;
+        Set<String> nonces = ConcurrentHashMap.newKeySet();
+        runConcurrently(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                String nonce = new DeviceRegisterRequest().getNonce();
+                assertTrue(nonce, nonce.matches("[A-Fa-f0-9]{32}"));
+                nonces.add(nonce);
+            }
+        });
+        assertEquals("nonce 不应重复", THREADS * perThread, nonces.size());
+    }
+
+    /**
+     * 所有线程在屏障处同时开始，任一线程抛出异常或断言失败都会使测试失败
+     */
+    private static void runConcurrently(Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<DeviceRegisterRequest> requests() {
+        List<DeviceRegisterRequest> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            DeviceRegisterRequest request = new DeviceRegisterRequest();
+            request.setMac(String.format("00:11:22:33:44:%02X", i));
+            request.setHardwareVersion("1.2." + (i % 10));
+            request.setSoftwareVersion("2.1.0");
+            request.setLongitude("116.4074");
+            request.setLatitude("39.9042");
+            // 部分请求缺少可选字段，覆盖空值规则
+            if (i % 3 != 0) {
+                request.setImei("490154203237518");
+            }
+            request.setDeviceSn(String.format("xxxx1%014d", i));
+            requests.add(request);
+        }
+        return requests;
+    }
+}
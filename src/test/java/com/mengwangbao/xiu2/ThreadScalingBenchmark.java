@@ -0,0 +1,179 @@
+package com.mengwangbao.xiu2;
+
+import com.mengwangbao.xiu2.register.DeviceRegisterRequest;
+import com.mengwangbao.xiu2.register.RegisterSDK;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程扩展性基准：1 到 N 个线程同时执行热点操作，输出吞吐、相对单线程的扩展效率以及锁竞争情况
+ * <p>
+ * 每个工作线程在测量结束时通过 {@link ThreadMXBean} 读取自身进入 synchronized 时被阻塞的次数与时长，
+ * 共享锁或共享缓冲区造成的竞争会直接体现在这两列中，而不必从吞吐曲线间接推断。
+ * 线程数不超过 CPU 核数时，扩展效率低于 70% 即标记为疑似竞争。
+ * <p>
+ * 参数：[最大线程数，默认 CPU 核数的 2 倍] [每档测量秒数，默认 2]
+ * 例如在 64 核机器上：{@code ThreadScalingBenchmark 128 3}
+ */
+public class ThreadScalingBenchmark {
+
+    private static final double CONTENTION_THRESHOLD = 0.7;
+
+    private interface Operation {
+        Object run(int iteration) throws Exception;
+    }
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : cores * 2;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean.isThreadContentionMonitoringSupported()) {
+            threadMXBean.setThreadContentionMonitoringEnabled(true);
+        }
+
+        RegisterSDK registerSDK = new RegisterSDK();
+        DeviceRegisterRequest request = new DeviceRegisterRequest();
+        request.setMac("00:11:22:33:44:55");
+        request.setImei("490154203237518");
+        request.setHardwareVersion("1.2.3");
+        request.setSoftwareVersion("2.1.0");
+        request.setLongitude("116.4074");
+        request.setLatitude("39.9042");
+        request.setDeviceSn("xxxx10000000000b001");
+
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        Ed25519PrivateKeyParameters privateKey = Ed25519Utils.decodePrivateKeyFromPem(keyPair.getPrivateKeyPem());
+        Ed25519PublicKeyParameters publicKey = Ed25519Utils.decodePublicKeyFromPem(keyPair.getPublicKeyPem());
+        byte[] message = registerSDK.buildSignString(request).getBytes(StandardCharsets.UTF_8);
+        String signature = Ed25519Utils.signMessage(message, privateKey);
+
+        System.out.println("CPU 核数: " + cores + "，最大线程数: " + maxThreads + "，每档 " + seconds + " s");
+        if (!threadMXBean.isThreadContentionMonitoringSupported()) {
+            System.out.println("当前 JVM 不支持线程竞争监控，阻塞列为 -");
+        }
+
+        measure("待签名串 (RegisterSDK)", maxThreads, seconds, cores, i -> registerSDK.buildSignString(request));
+        measure("JSON 序列化", maxThreads, seconds, cores, i -> registerSDK.serializeRequestToJson(request));
+        measure("新建请求 (生成 nonce)", maxThreads, seconds, cores, i -> new DeviceRegisterRequest());
+        measure("签名 (已解析私钥)", maxThreads, seconds, cores, i -> Ed25519Utils.signMessage(message, privateKey));
+        measure("签名 (PEM)", maxThreads, seconds, cores,
+                i -> Ed25519Utils.signMessage(message, keyPair.getPrivateKeyPem()));
+        measure("验签 (已解析公钥)", maxThreads, seconds, cores,
+                i -> Ed25519Utils.verifySignature(message, signature, publicKey));
+        measure("验签 (PEM)", maxThreads, seconds, cores,
+                i -> Ed25519Utils.verifySignature(message, signature, keyPair.getPublicKeyPem()));
+    }
+
+    private static void measure(String name, int maxThreads, double seconds, int cores, Operation operation) throws Exception {
+        System.out.println("\n=== " + name + " ===");
+        System.out.printf("%8s %14s %10s %12s %14s%n", "线程", "吞吐(次/s)", "效率", "阻塞次数", "阻塞时长(ms)");
+
+        // 预热
+        run(1, seconds / 2, operation);
+
+        double baseline = 0;
+        for (int threads : threadCounts(maxThreads)) {
+            Result result = run(threads, seconds, operation);
+            double throughput = result.operations / seconds;
+            if (threads == 1) {
+                baseline = throughput;
+            }
+            double efficiency = throughput / (baseline * threads);
+            boolean suspicious = threads <= cores && threads > 1 && efficiency < CONTENTION_THRESHOLD;
+            System.out.printf("%8d %14.0f %9.0f%% %12s %14s%s%n", threads, throughput, efficiency * 100,
+                    result.blockedCount < 0 ? "-" : String.valueOf(result.blockedCount),
+                    result.blockedMillis < 0 ? "-" : String.valueOf(result.blockedMillis),
+                    suspicious ? "  <- 疑似竞争" : "");
+        }
+    }
+
+    /**
+     * 1、2、4 ... 直到最大线程数（最大线程数本身总会被测量）
+     */
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(maxThreads);
+        return counts;
+    }
+
+    private static class Result {
+        long operations;
+        long blockedCount;
+        long blockedMillis;
+    }
+
+    private static Result run(int threads, double seconds, Operation operation) throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        boolean contentionMonitoring = threadMXBean.isThreadContentionMonitoringEnabled();
+        LongAdder operations = new LongAdder();
+        LongAdder blockedCount = new LongAdder();
+        LongAdder blockedMillis = new LongAdder();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long durationNanos = (long) (seconds * 1_000_000_000L);
+        List<Thread> workers = new ArrayList<>(threads);
+        List<Throwable> failures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadInfo before = contentionMonitoring ? threadMXBean.getThreadInfo(Thread.currentThread().getId()) : null;
+                ready.countDown();
+                try {
+                    start.await();
+                    long deadline = System.nanoTime() + durationNanos;
+                    long count = 0;
+                    while (System.nanoTime() < deadline) {
+                        // 每次检查时间前执行一小批，降低 nanoTime 的开销占比
+                        for (int i = 0; i < 16; i++) {
+                            sink = operation.run(i);
+                        }
+                        count += 16;
+                    }
+                    operations.add(count);
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+                if (before != null) {
+                    ThreadInfo after = threadMXBean.getThreadInfo(Thread.currentThread().getId());
+                    blockedCount.add(after.getBlockedCount() - before.getBlockedCount());
+                    blockedMillis.add(after.getBlockedTime() - before.getBlockedTime());
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        ready.await();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("基准执行失败", failures.get(0));
+        }
+
+        Result result = new Result();
+        result.operations = operations.sum();
+        result.blockedCount = contentionMonitoring ? blockedCount.sum() : -1;
+        result.blockedMillis = contentionMonitoring ? blockedMillis.sum() : -1;
+        return result;
+    }
+}
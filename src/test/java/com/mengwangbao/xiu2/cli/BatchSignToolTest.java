@@ -0,0 +1,111 @@
+package com.mengwangbao.xiu2.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mengwangbao.xiu2.register.DeviceRegisterRequest;
+import com.mengwangbao.xiu2.register.RegisterSDK;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * BatchSignTool 单元测试
+ */
+public class BatchSignToolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testSignThenVerify() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        Path privateKey = write("private.pem", keyPair.getPrivateKeyPem());
+        Path publicKey = write("public.pem", keyPair.getPublicKeyPem());
+
+        List<String> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            DeviceRegisterRequest request = new DeviceRegisterRequest();
+            request.setMac("00:11:22:33:44:55");
+            request.setDeviceSn("xxxx10000000000b" + i);
+            requests.add(objectMapper.writeValueAsString(request));
+        }
+        // 无法解析的行不能混入签名结果
+        requests.add("not json");
+        Path input = write("requests.jsonl", String.join("\n", requests));
+        Path signed = folder.getRoot().toPath().resolve("signed.jsonl");
+        Path errors = folder.getRoot().toPath().resolve("errors.jsonl");
+        Path verified = folder.getRoot().toPath().resolve("verified.jsonl");
+
+        BatchSignTool.Summary signSummary = new BatchSignTool(BatchSignTool.Options.parse(new String[]{
+                "--mode", "sign", "--private-key", privateKey.toString(),
+                "--in", input.toString(), "--out", signed.toString(), "--errors", errors.toString(),
+                "--threads", "4", "--batch-size", "7"})).run();
+        assertEquals(51, signSummary.getLines());
+        assertEquals(50, signSummary.getValid());
+        assertEquals(1, signSummary.getErrors());
+        List<String> errorLines = Files.readAllLines(errors, StandardCharsets.UTF_8);
+        assertEquals(1, errorLines.size());
+        Map<?, ?> error = objectMapper.readValue(errorLines.get(0), Map.class);
+        assertEquals(51, ((Number) error.get("line")).intValue());
+        assertNotNull(error.get("error"));
+
+        // 每个签名都与 SDK 对同一请求的签名一致，且能用公钥验证
+        RegisterSDK registerSDK = new RegisterSDK();
+        List<String> signedLines = Files.readAllLines(signed, StandardCharsets.UTF_8);
+        assertEquals(50, signedLines.size());
+        for (String signedLine : signedLines) {
+            ObjectNode node = (ObjectNode) objectMapper.readTree(signedLine);
+            String signature = node.remove("signature").asText();
+            DeviceRegisterRequest request = objectMapper.treeToValue(node, DeviceRegisterRequest.class);
+            String message = registerSDK.buildSignString(request);
+            assertEquals(registerSDK.generateSignature(message, keyPair.getPrivateKeyPem()), signature);
+            assertTrue(registerSDK.verifySignature(message, signature, keyPair.getPublicKeyPem()));
+        }
+
+        // 篡改最后一行
+        String last = signedLines.get(49).replace("00:11:22:33:44:55", "00:11:22:33:44:66");
+        signedLines.set(49, last);
+        signedLines.add("not json");
+        Files.write(signed, signedLines, StandardCharsets.UTF_8);
+
+        BatchSignTool.Summary verifySummary = new BatchSignTool(BatchSignTool.Options.parse(new String[]{
+                "--mode", "verify", "--public-key", publicKey.toString(),
+                "--in", signed.toString(), "--out", verified.toString(),
+                "--threads", "3", "--batch-size", "5"})).run();
+        assertEquals(51, verifySummary.getLines());
+        assertEquals(49, verifySummary.getValid());
+        assertEquals(1, verifySummary.getInvalid());
+        assertEquals(1, verifySummary.getErrors());
+
+        // 输出顺序与输入一致
+        List<String> results = Files.readAllLines(verified, StandardCharsets.UTF_8);
+        assertEquals(51, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Map<?, ?> result = objectMapper.readValue(results.get(i), Map.class);
+            assertEquals(i + 1, ((Number) result.get("line")).intValue());
+        }
+        assertEquals(Boolean.FALSE, objectMapper.readValue(results.get(49), Map.class).get("valid"));
+        assertNotNull(objectMapper.readValue(results.get(50), Map.class).get("error"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testVerifyRequiresPublicKey() {
+        BatchSignTool.Options.parse(new String[]{"--mode", "verify"});
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.write(folder.getRoot().toPath().resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
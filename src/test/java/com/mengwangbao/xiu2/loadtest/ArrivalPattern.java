@@ -0,0 +1,81 @@
+package com.mengwangbao.xiu2.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 注册请求到达模式，生成每个请求相对压测开始时刻的发送时间
+ */
+public enum ArrivalPattern {
+
+    /**
+     * 平稳：按固定速率均匀到达
+     */
+    STEADY {
+        @Override
+        long[] schedule(int count, double ratePerSecond, long windowMillis, Random random) {
+            long[] offsets = new long[count];
+            double intervalNanos = 1_000_000_000.0 / ratePerSecond;
+            for (int i = 0; i < count; i++) {
+                offsets[i] = (long) (i * intervalNanos);
+            }
+            return offsets;
+        }
+    },
+
+    /**
+     * 突发：平均速率与 STEADY 相同，但每个窗口开始时一次性到达一整批
+     */
+    BURST {
+        @Override
+        long[] schedule(int count, double ratePerSecond, long windowMillis, Random random) {
+            long[] offsets = new long[count];
+            int burstSize = Math.max(1, (int) (ratePerSecond * windowMillis / 1000.0));
+            for (int i = 0; i < count; i++) {
+                offsets[i] = (i / burstSize) * windowMillis * 1_000_000L;
+            }
+            return offsets;
+        }
+    },
+
+    /**
+     * 上电风暴：停电恢复后全部设备在窗口内随机启动并同时注册，忽略速率参数
+     */
+    POWER_ON_STORM {
+        @Override
+        long[] schedule(int count, double ratePerSecond, long windowMillis, Random random) {
+            long[] offsets = new long[count];
+            long windowNanos = windowMillis * 1_000_000L;
+            for (int i = 0; i < count; i++) {
+                // 启动时间集中在窗口前段：两个均匀分布取较小值
+                offsets[i] = (long) (Math.min(random.nextDouble(), random.nextDouble()) * windowNanos);
+            }
+            Arrays.sort(offsets);
+            return offsets;
+        }
+    };
+
+    /**
+     * 生成发送时间表（纳秒，升序）
+     *
+     * @param count 请求数
+     * @param ratePerSecond 平均速率（次/秒）
+     * @param windowMillis 突发间隔或风暴窗口（毫秒）
+     * @param random 随机数源
+     */
+    abstract long[] schedule(int count, double ratePerSecond, long windowMillis, Random random);
+
+    static ArrivalPattern parse(String value) {
+        switch (value.toLowerCase()) {
+            case "steady":
+                return STEADY;
+            case "burst":
+                return BURST;
+            case "storm":
+            case "power-on-storm":
+                return POWER_ON_STORM;
+            default:
+                throw new IllegalArgumentException("未知的到达模式: " + value + "，可选 steady、burst、storm");
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.mengwangbao.xiu2.loadtest;
+
+import com.mengwangbao.xiu2.register.DeviceRegisterRequest;
+import com.mengwangbao.xiu2.register.NonceWindow;
+import com.mengwangbao.xiu2.register.RegisterClient;
+import com.mengwangbao.xiu2.register.RegisterExecutors;
+import com.mengwangbao.xiu2.register.RegisterVerifier;
+import com.mengwangbao.xiu2.register.RegistrationJournal;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 本地设备集群注册模拟
+ * <p>
+ * 启动回环地址上的桩服务（{@link RegisterStubServer}，经 {@link RegisterVerifier} 完整校验），模拟 N 台设备按指定到达模式
+ * （平稳、突发、上电风暴）发起注册：每次注册都新建 {@link DeviceRegisterRequest}（新的 nonce 和 timestamp），
+ * 经 {@link RegisterClient} 用 RegisterSDK 生成待签名串并签名后发送。全程不访问外部网络。
+ * <p>
+ * 客户端延迟从计划发送时刻开始计时，而非实际发出时刻，调度线程或连接池排队的时间也会计入，
+ * 避免高负载下的协调遗漏（coordinated omission）使分位数偏低。服务端延迟为从开始处理到响应写出的时间，
+ * 包含请求体反序列化、字段校验、验签、防重放检查，以及指定 --journal-dir 时的注册日志落盘等待。
+ * <p>
+ * 参数见 {@link Options#parse(String[])}，例如：
+ * {@code --devices 5000 --pattern storm --window-ms 2000 --server-delay-ms 20}
+ */
+public class FleetSimulation {
+
+    /**
+     * 模拟参数
+     */
+    public static class Options {
+        int devices = 1000;
+        int registrationsPerDevice = 1;
+        ArrivalPattern pattern = ArrivalPattern.STEADY;
+        double ratePerSecond = 500;
+        long windowMillis = 1000;
+        long serverDelayMillis = 0;
+        int serverThreads = Runtime.getRuntime().availableProcessors();
+        int clientThreads = RegisterExecutors.DEFAULT_PLATFORM_POOL_SIZE;
+        long seed = 42;
+        Path journalDirectory;
+
+        /**
+         * 解析命令行参数
+         * <pre>
+         * --devices N              设备数，默认 1000
+         * --registrations N        每台设备注册次数，默认 1
+         * --pattern P              steady | burst | storm，默认 steady
+         * --rate R                 平均速率（次/秒），steady 和 burst 使用，默认 500
+         * --window-ms W            burst 的批间隔或 storm 的上电窗口，默认 1000
+         * --server-delay-ms D      服务端响应延迟，模拟数据库写入，默认 0
+         * --server-threads T       服务端验签线程数，默认 CPU 核数
+         * --client-threads T       客户端阻塞线程数，默认 200
+         * --seed S                 随机种子，默认 42
+         * --journal-dir D          服务端注册日志目录，指定后每个请求等待日志落盘再响应，默认不写日志
+         * </pre>
+         *
+         * @throws IllegalArgumentException 当参数不合法时
+         */
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException(arg + " 缺少参数值");
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--devices":
+                        options.devices = Integer.parseInt(value);
+                        break;
+                    case "--registrations":
+                        options.registrationsPerDevice = Integer.parseInt(value);
+                        break;
+                    case "--pattern":
+                        options.pattern = ArrivalPattern.parse(value);
+                        break;
+                    case "--rate":
+                        options.ratePerSecond = Double.parseDouble(value);
+                        break;
+                    case "--window-ms":
+                        options.windowMillis = Long.parseLong(value);
+                        break;
+                    case "--server-delay-ms":
+                        options.serverDelayMillis = Long.parseLong(value);
+                        break;
+                    case "--server-threads":
+                        options.serverThreads = Integer.parseInt(value);
+                        break;
+                    case "--client-threads":
+                        options.clientThreads = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        options.seed = Long.parseLong(value);
+                        break;
+                    case "--journal-dir":
+                        options.journalDirectory = Paths.get(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("未知参数: " + arg);
+                }
+            }
+            if (options.devices <= 0 || options.registrationsPerDevice <= 0 || !(options.ratePerSecond > 0)
+                    || options.windowMillis <= 0 || options.serverThreads <= 0 || options.clientThreads <= 0) {
+                throw new IllegalArgumentException("设备数、注册次数、速率、窗口和线程数必须为正数");
+            }
+            return options;
+        }
+    }
+
+    /**
+     * 模拟结果
+     */
+    public static class Report {
+        final Options options;
+        final int total;
+        final long success;
+        final long failure;
+        final double elapsedSeconds;
+        final LatencyRecorder.Snapshot clientLatency;
+        final LatencyRecorder.Snapshot serverLatency;
+        final long serverAccepted;
+        final long serverRejected;
+
+        Report(Options options, int total, long success, long failure, double elapsedSeconds,
+               LatencyRecorder.Snapshot clientLatency, LatencyRecorder.Snapshot serverLatency,
+               long serverAccepted, long serverRejected) {
+            this.options = options;
+            this.total = total;
+            this.success = success;
+            this.failure = failure;
+            this.elapsedSeconds = elapsedSeconds;
+            this.clientLatency = clientLatency;
+            this.serverLatency = serverLatency;
+            this.serverAccepted = serverAccepted;
+            this.serverRejected = serverRejected;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("模式 %s，设备 %d，请求 %d，服务端延迟 %d ms，服务端线程 %d，客户端线程 %d%n",
+                    options.pattern, options.devices, total, options.serverDelayMillis,
+                    options.serverThreads, options.clientThreads);
+            out.printf("耗时 %.2f s，吞吐 %.0f 次/s，成功 %d，失败 %d%n",
+                    elapsedSeconds, total / elapsedSeconds, success, failure);
+            out.println("客户端 " + clientLatency.format());
+            out.println("服务端（解析 + 完整校验" + (options.journalDirectory != null ? " + 日志落盘" : "") + "） "
+                    + serverLatency.format());
+            out.println("服务端接受 " + serverAccepted + "，拒绝 " + serverRejected);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        // 放宽 HttpURLConnection 每个目标地址的空闲长连接上限，避免连接反复新建
+        System.setProperty("http.maxConnections", String.valueOf(Math.max(options.clientThreads, 5)));
+
+        run(options).print(System.out);
+    }
+
+    /**
+     * 执行一次模拟
+     */
+    public static Report run(Options options) throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        int total = options.devices * options.registrationsPerDevice;
+        LatencyRecorder clientRecorder = new LatencyRecorder(total);
+        LatencyRecorder serverRecorder = new LatencyRecorder(total);
+        LongAdder success = new LongAdder();
+        LongAdder failure = new LongAdder();
+
+        long[] schedule = options.pattern.schedule(total, options.ratePerSecond, options.windowMillis,
+                new Random(options.seed));
+
+        RegisterVerifier verifier = new RegisterVerifier(keyPair.getPublicKeyPem());
+        verifier.setNonceWindow(new NonceWindow(RegisterStubServer.DEFAULT_NONCE_WINDOW_MILLIS));
+        try (RegistrationJournal journal = options.journalDirectory == null ? null
+                     : new RegistrationJournal(options.journalDirectory);
+             RegisterStubServer server = new RegisterStubServer(verifier, options.serverDelayMillis, options.serverThreads)) {
+            verifier.setJournal(journal);
+            server.setLatencyRecorder(serverRecorder);
+
+            ExecutorService executor = RegisterExecutors.newPlatformExecutor(options.clientThreads);
+            try (RegisterClient client = new RegisterClient(server.getEndpoint(), keyPair.getPrivateKeyPem(), executor)) {
+                List<CompletableFuture<?>> completions = new ArrayList<>(total);
+                long start = System.nanoTime();
+                for (int i = 0; i < total; i++) {
+                    long scheduledNanos = start + schedule[i];
+                    long waitNanos;
+                    while ((waitNanos = scheduledNanos - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(waitNanos);
+                    }
+
+                    completions.add(client.registerAsync(newRequest(i % options.devices))
+                            .whenComplete((response, error) -> {
+                                clientRecorder.record(System.nanoTime() - scheduledNanos);
+                                if (error == null && response.isSuccess()) {
+                                    success.increment();
+                                } else {
+                                    failure.increment();
+                                }
+                            }));
+                }
+                for (CompletableFuture<?> completion : completions) {
+                    try {
+                        completion.join();
+                    } catch (RuntimeException e) {
+                        // 已在 whenComplete 中计入失败
+                    }
+                }
+                double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+                return new Report(options, total, success.sum(), failure.sum(), elapsedSeconds,
+                        clientRecorder.snapshot(), serverRecorder.snapshot(),
+                        server.getAcceptedCount(), server.getRejectedCount());
+            }
+        }
+    }
+
+    /**
+     * 按设备编号生成注册请求，每次调用都会生成新的 nonce 和 timestamp
+     */
+    static DeviceRegisterRequest newRequest(int device) {
+        DeviceRegisterRequest request = new DeviceRegisterRequest();
+        request.setMac(String.format("02:00:%02X:%02X:%02X:%02X",
+                (device >>> 24) & 0xFF, (device >>> 16) & 0xFF, (device >>> 8) & 0xFF, device & 0xFF));
+        request.setHardwareVersion("1.2.3");
+        request.setSoftwareVersion("2.1.0");
+        request.setLongitude("116.4074");
+        request.setLatitude("39.9042");
+        request.setDeviceSn(String.format("xxxx1%014d", device));
+        return request;
+    }
+}
@@ -0,0 +1,78 @@
+package com.mengwangbao.xiu2.loadtest;
+
+import com.mengwangbao.xiu2.register.RegistrationJournal;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 设备集群模拟的冒烟测试与分位数统计测试
+ */
+public class FleetSimulationTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPowerOnStormAllAccepted() throws Exception {
+        FleetSimulation.Options options = FleetSimulation.Options.parse(new String[]{
+                "--devices", "40", "--registrations", "2", "--pattern", "storm", "--window-ms", "200",
+                "--server-threads", "2", "--client-threads", "16",
+                "--journal-dir", folder.getRoot().getAbsolutePath()});
+        FleetSimulation.Report report = FleetSimulation.run(options);
+
+        assertEquals(80, report.total);
+        assertEquals(80, report.success);
+        assertEquals(0, report.failure);
+        assertEquals(80, report.serverAccepted);
+        assertEquals(80, report.clientLatency.size());
+        assertEquals(80, report.serverLatency.size());
+        assertTrue(report.clientLatency.percentile(0.5) <= report.clientLatency.percentile(0.99));
+
+        // 每个被接受的请求都已写入注册日志
+        try (RegistrationJournal journal = new RegistrationJournal(folder.getRoot().toPath())) {
+            assertEquals(80, journal.getNextSequence());
+        }
+    }
+
+    @Test
+    public void testArrivalSchedules() {
+        long[] steady = ArrivalPattern.STEADY.schedule(4, 1000, 100, new Random(1));
+        assertArrayEquals(new long[]{0, 1_000_000, 2_000_000, 3_000_000}, steady);
+
+        // 每秒 20 次、每 100ms 一批，即每批 2 个
+        long[] burst = ArrivalPattern.BURST.schedule(5, 20, 100, new Random(1));
+        assertArrayEquals(new long[]{0, 0, 100_000_000, 100_000_000, 200_000_000}, burst);
+
+        long[] storm = ArrivalPattern.POWER_ON_STORM.schedule(1000, 1, 500, new Random(1));
+        for (int i = 1; i < storm.length; i++) {
+            assertTrue(storm[i] >= storm[i - 1]);
+        }
+        assertTrue(storm[storm.length - 1] < 500_000_000L);
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyRecorder recorder = new LatencyRecorder(1000);
+        for (int i = 1000; i >= 1; i--) {
+            recorder.record(i);
+        }
+        recorder.record(5000);
+        assertEquals(1, recorder.getDroppedCount());
+
+        LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+        assertEquals(500, snapshot.percentile(0.5));
+        assertEquals(990, snapshot.percentile(0.99));
+        assertEquals(999, snapshot.percentile(0.999));
+        assertEquals(1000, snapshot.max());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPatternRejected() {
+        FleetSimulation.Options.parse(new String[]{"--pattern", "random"});
+    }
+}
@@ -0,0 +1,108 @@
+package com.mengwangbao.xiu2.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟采样记录器，多线程并发写入，压测结束后统计分位数
+ * <p>
+ * 预先分配固定容量，记录时只做一次原子自增和一次数组写入；超出容量的样本计入 {@link #getDroppedCount()}。
+ */
+public class LatencyRecorder {
+
+    private final AtomicLongArray samples;
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * @param capacity 最多记录的样本数
+     */
+    public LatencyRecorder(int capacity) {
+        this.samples = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * 记录一个样本
+     *
+     * @param nanos 延迟（纳秒）
+     */
+    public void record(long nanos) {
+        int index = count.getAndIncrement();
+        if (index < samples.length()) {
+            samples.set(index, nanos);
+        }
+    }
+
+    /**
+     * 已记录的样本数
+     */
+    public int getCount() {
+        return Math.min(count.get(), samples.length());
+    }
+
+    /**
+     * 因超出容量而丢弃的样本数
+     */
+    public int getDroppedCount() {
+        return Math.max(count.get() - samples.length(), 0);
+    }
+
+    /**
+     * 统计当前所有样本
+     */
+    public Snapshot snapshot() {
+        int n = getCount();
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        return new Snapshot(sorted);
+    }
+
+    /**
+     * 排好序的样本快照
+     */
+    public static class Snapshot {
+
+        private final long[] sorted;
+
+        Snapshot(long[] sorted) {
+            this.sorted = sorted;
+        }
+
+        public int size() {
+            return sorted.length;
+        }
+
+        /**
+         * 分位数（nearest-rank），无样本时返回 0
+         *
+         * @param quantile 0 到 1 之间，如 0.99
+         * @return 延迟（纳秒）
+         */
+        public long percentile(double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+        }
+
+        public long max() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        }
+
+        /**
+         * 格式化为 "p50 / p99 / p999 / max"，单位毫秒
+         */
+        public String format() {
+            return String.format("p50 %8.2f ms  p99 %8.2f ms  p999 %8.2f ms  max %8.2f ms",
+                    millis(percentile(0.50)), millis(percentile(0.99)), millis(percentile(0.999)), millis(max()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.mengwangbao.xiu2.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mengwangbao.xiu2.register.DeviceRegisterRequest;
+import com.mengwangbao.xiu2.register.NonceWindow;
+import com.mengwangbao.xiu2.register.RegisterClient;
+import com.mengwangbao.xiu2.register.RegisterVerifier;
+import com.mengwangbao.xiu2.util.ObjectMapperHolder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地注册接口桩服务，仅监听回环地址
+ * <p>
+ * 按真实服务端的路径处理请求：用 SDK 共享的 ObjectMapper（即 {@link DeviceRegisterRequest} 的反序列化器）解析请求体，
+ * 再交给 {@link RegisterVerifier#verify}，依次经过字段校验、限流、验签、防重放和注册日志（按校验器的配置）。
+ * 结果映射为状态码：通过 200，字段错误 400，签名无效 401，重放 409，限流 429，写日志失败 500。
+ * <p>
+ * 可配置响应延迟，模拟校验之后的阻塞 I/O（业务数据库写入等），延迟由调度线程完成，不占用处理线程。
+ */
+public class RegisterStubServer implements AutoCloseable {
+
+    public static final String PATH = "/device/register";
+
+    /**
+     * 默认防重放窗口
+     */
+    public static final long DEFAULT_NONCE_WINDOW_MILLIS = 300_000;
+
+    private final HttpServer server;
+    private final ExecutorService handlerExecutor;
+    private final ScheduledExecutorService delayExecutor;
+    private final RegisterVerifier verifier;
+    private final long responseDelayMillis;
+
+    private final LongAdder acceptedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private volatile LatencyRecorder latencyRecorder;
+
+    /**
+     * 启动桩服务，使用开启字段校验和防重放窗口、不写注册日志的校验器
+     *
+     * @param publicKeyPem 验签公钥
+     * @param responseDelayMillis 响应延迟（毫秒），0 表示立即响应
+     * @param handlerThreads 处理线程数
+     * @throws Exception 当公钥不合法或端口绑定失败时
+     */
+    public RegisterStubServer(String publicKeyPem, long responseDelayMillis, int handlerThreads) throws Exception {
+        this(defaultVerifier(publicKeyPem), responseDelayMillis, handlerThreads);
+    }
+
+    /**
+     * 启动桩服务
+     *
+     * @param verifier 服务端校验器，可预先配置限流器、防重放窗口和注册日志
+     * @param responseDelayMillis 响应延迟（毫秒），0 表示立即响应
+     * @param handlerThreads 处理线程数
+     * @throws IOException 当端口绑定失败时
+     */
+    public RegisterStubServer(RegisterVerifier verifier, long responseDelayMillis, int handlerThreads) throws IOException {
+        this.verifier = verifier;
+        this.responseDelayMillis = responseDelayMillis;
+        this.handlerExecutor = Executors.newFixedThreadPool(handlerThreads);
+        this.delayExecutor = Executors.newScheduledThreadPool(2);
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16384);
+        this.server.createContext(PATH, this::handle);
+        this.server.setExecutor(handlerExecutor);
+        this.server.start();
+    }
+
+    /**
+     * 注册接口完整地址
+     */
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public RegisterVerifier getVerifier() {
+        return verifier;
+    }
+
+    /**
+     * 设置服务端延迟记录器（从读取请求体到响应写出，包含解析和完整校验流程），为 null 时不记录
+     */
+    public void setLatencyRecorder(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    private void handle(HttpExchange exchange) {
+        long startNanos = System.nanoTime();
+        int statusCode;
+        String body;
+        try {
+            ObjectMapper mapper = ObjectMapperHolder.get();
+            ObjectNode node = (ObjectNode) mapper.readTree(readFully(exchange.getRequestBody()));
+            JsonNode signature = node.remove(RegisterClient.SIGNATURE_FIELD);
+            DeviceRegisterRequest request = mapper.treeToValue(node, DeviceRegisterRequest.class);
+            RegisterVerifier.Result result = verifier.verify(request, signature == null ? null : signature.asText());
+            statusCode = statusCode(result);
+            body = "{\"code\":" + (statusCode == 200 ? 0 : statusCode) + ",\"message\":\"" + result + "\"}";
+        } catch (IOException | ClassCastException | IllegalArgumentException e) {
+            statusCode = 400;
+            body = "{\"code\":400,\"message\":\"bad request\"}";
+        } catch (RuntimeException e) {
+            // 写入注册日志失败等
+            statusCode = 500;
+            body = "{\"code\":500,\"message\":\"internal error\"}";
+        }
+        (statusCode == 200 ? acceptedCount : rejectedCount).increment();
+
+        int finalStatusCode = statusCode;
+        String finalBody = body;
+        if (responseDelayMillis > 0) {
+            delayExecutor.schedule(() -> respond(exchange, finalStatusCode, finalBody, startNanos),
+                    responseDelayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            respond(exchange, finalStatusCode, finalBody, startNanos);
+        }
+    }
+
+    private static int statusCode(RegisterVerifier.Result result) {
+        switch (result) {
+            case ACCEPTED:
+                return 200;
+            case INVALID_FIELDS:
+                return 400;
+            case INVALID_SIGNATURE:
+                return 401;
+            case REPLAYED:
+                return 409;
+            case THROTTLED:
+                return 429;
+            default:
+                return 500;
+        }
+    }
+
+    private static RegisterVerifier defaultVerifier(String publicKeyPem) throws Exception {
+        RegisterVerifier verifier = new RegisterVerifier(publicKeyPem);
+        verifier.setNonceWindow(new NonceWindow(DEFAULT_NONCE_WINDOW_MILLIS));
+        return verifier;
+    }
+
+    private void respond(HttpExchange exchange, int statusCode, String body, long startNanos) {
+        respond(exchange, statusCode, body);
+        LatencyRecorder recorder = latencyRecorder;
+        if (recorder != null) {
+            recorder.record(System.nanoTime() - startNanos);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int statusCode, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(statusCode, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlerExecutor.shutdownNow();
+        delayExecutor.shutdownNow();
+    }
+}
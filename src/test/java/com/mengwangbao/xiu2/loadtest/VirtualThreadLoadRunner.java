@@ -0,0 +1,90 @@
+package com.mengwangbao.xiu2.loadtest;
+
+import com.mengwangbao.xiu2.register.DeviceRegisterRequest;
+import com.mengwangbao.xiu2.register.RegisterClient;
+import com.mengwangbao.xiu2.register.RegisterExecutors;
+import com.mengwangbao.xiu2.register.RegisterResponse;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 阻塞式注册的并发压测：对比虚拟线程与平台线程池
+ * <p>
+ * 启动本地桩服务（带响应延迟，模拟服务端阻塞 I/O），同时发起 N 个注册请求，
+ * 分别使用平台线程池和虚拟线程执行器（JDK 21+ 才有），输出总耗时与吞吐。
+ * <p>
+ * 参数：[并发注册数，默认 10000] [服务端响应延迟毫秒，默认 100] [平台线程池大小，默认 200]
+ * <p>
+ * 运行方式：在 IDE 中直接运行 main，或
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.mengwangbao.xiu2.loadtest.VirtualThreadLoadRunner}
+ */
+public class VirtualThreadLoadRunner {
+
+    public static void main(String[] args) throws Exception {
+        int registrations = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long delayMillis = args.length > 1 ? Long.parseLong(args[1]) : 100;
+        int platformPoolSize = args.length > 2 ? Integer.parseInt(args[2]) : RegisterExecutors.DEFAULT_PLATFORM_POOL_SIZE;
+
+        // 放宽 HttpURLConnection 每个目标地址的空闲长连接上限，避免连接反复新建
+        System.setProperty("http.maxConnections", "2000");
+
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        try (RegisterStubServer server = new RegisterStubServer(keyPair.getPublicKeyPem(), delayMillis,
+                Runtime.getRuntime().availableProcessors())) {
+
+            System.out.println("=== 阻塞式注册并发压测 ===");
+            System.out.println("并发注册数: " + registrations + "，服务端延迟: " + delayMillis + " ms");
+
+            // 预热
+            run("预热", server, keyPair, RegisterExecutors.newPlatformExecutor(platformPoolSize), Math.min(registrations, 2000));
+
+            run("平台线程池(" + platformPoolSize + ")", server, keyPair,
+                    RegisterExecutors.newPlatformExecutor(platformPoolSize), registrations);
+
+            ExecutorService virtualExecutor = RegisterExecutors.newVirtualThreadExecutor();
+            if (virtualExecutor != null) {
+                run("虚拟线程", server, keyPair, virtualExecutor, registrations);
+            } else {
+                System.out.println("当前 JVM (" + System.getProperty("java.version") + ") 不支持虚拟线程，跳过虚拟线程对比");
+            }
+
+            System.out.println("服务端接受: " + server.getAcceptedCount() + "，拒绝: " + server.getRejectedCount());
+        }
+    }
+
+    private static void run(String name, RegisterStubServer server, Ed25519Utils.KeyPairResult keyPair,
+                            ExecutorService executor, int registrations) throws Exception {
+        try (RegisterClient client = new RegisterClient(server.getEndpoint(), keyPair.getPrivateKeyPem(), executor)) {
+            long start = System.nanoTime();
+            List<CompletableFuture<RegisterResponse>> futures = new ArrayList<>(registrations);
+            for (int i = 0; i < registrations; i++) {
+                DeviceRegisterRequest request = new DeviceRegisterRequest();
+                request.setMac("00:11:22:33:44:55");
+                request.setDeviceSn(String.format("xxxx1%014d", i));
+                futures.add(client.registerAsync(request));
+            }
+
+            int success = 0;
+            int failure = 0;
+            for (CompletableFuture<RegisterResponse> future : futures) {
+                try {
+                    if (future.join().isSuccess()) {
+                        success++;
+                    } else {
+                        failure++;
+                    }
+                } catch (RuntimeException e) {
+                    failure++;
+                }
+            }
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            System.out.printf("%-20s 耗时 %7.2f s，吞吐 %8.0f 次/s，成功 %d，失败 %d%n",
+                    name, seconds, registrations / seconds, success, failure);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.mengwangbao.xiu2.register;
+
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+import com.mengwangbao.xiu2.util.ObjectMapperHolder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量注册信封单元测试
+ */
+public class BatchRegisterEnvelopeTest {
+
+    private final RegisterSDK registerSDK = new RegisterSDK();
+
+    @Test
+    public void testSignAndVerifyBatch() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        BatchRegisterEnvelope envelope = registerSDK.signBatch(requests(7), keyPair.getPrivateKeyPem());
+        assertEquals(64, envelope.getRootHash().length());
+        assertTrue(registerSDK.verifyBatch(envelope, keyPair.getPublicKeyPem()));
+
+        Ed25519Utils.KeyPairResult otherKey = Ed25519Utils.generateKeyPair();
+        assertFalse(registerSDK.verifyBatch(envelope, otherKey.getPublicKeyPem()));
+
+        envelope.getRequests().get(3).setLatitude("0.0");
+        assertFalse(registerSDK.verifyBatch(envelope, keyPair.getPublicKeyPem()));
+    }
+
+    @Test
+    public void testReorderedBatchRejected() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        BatchRegisterEnvelope envelope = registerSDK.signBatch(requests(4), keyPair.getPrivateKeyPem());
+        List<DeviceRegisterRequest> reordered = envelope.getRequests();
+        reordered.add(reordered.remove(0));
+        assertFalse(registerSDK.verifyBatch(envelope, keyPair.getPublicKeyPem()));
+    }
+
+    @Test
+    public void testInclusionProof() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        List<DeviceRegisterRequest> requests = requests(5);
+        BatchRegisterEnvelope envelope = registerSDK.signBatch(requests, keyPair.getPrivateKeyPem());
+
+        for (int i = 0; i < requests.size(); i++) {
+            BatchInclusionProof proof = registerSDK.createInclusionProof(envelope, i);
+            assertTrue(registerSDK.verifyInclusionProof(requests.get(i), proof, keyPair.getPublicKeyPem()));
+        }
+
+        BatchInclusionProof proof = registerSDK.createInclusionProof(envelope, 2);
+        assertFalse("请求与证明下标不匹配",
+                registerSDK.verifyInclusionProof(requests.get(1), proof, keyPair.getPublicKeyPem()));
+
+        proof.setBatchSize(6);
+        assertFalse("篡改批大小", registerSDK.verifyInclusionProof(requests.get(2), proof, keyPair.getPublicKeyPem()));
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        BatchRegisterEnvelope envelope = registerSDK.signBatch(requests(3), keyPair.getPrivateKeyPem());
+
+        String json = ObjectMapperHolder.get().writeValueAsString(envelope);
+        assertTrue(json.contains("\"root_hash\""));
+        BatchRegisterEnvelope decoded = ObjectMapperHolder.get().readValue(json, BatchRegisterEnvelope.class);
+        assertTrue(registerSDK.verifyBatch(decoded, keyPair.getPublicKeyPem()));
+
+        String proofJson = ObjectMapperHolder.get().writeValueAsString(registerSDK.createInclusionProof(envelope, 1));
+        BatchInclusionProof proof = ObjectMapperHolder.get().readValue(proofJson, BatchInclusionProof.class);
+        assertTrue(registerSDK.verifyInclusionProof(decoded.getRequests().get(1), proof, keyPair.getPublicKeyPem()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyBatchRejected() throws Exception {
+        registerSDK.signBatch(new ArrayList<>(), Ed25519Utils.generateKeyPair().getPrivateKeyPem());
+    }
+
+    private static List<DeviceRegisterRequest> requests(int count) {
+        List<DeviceRegisterRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DeviceRegisterRequest request = new DeviceRegisterRequest();
+            request.setMac("00:11:22:33:44:5" + (i % 10));
+            request.setHardwareVersion("1.2.3");
+            request.setSoftwareVersion("2.1.0");
+            request.setDeviceSn("xxxx10000000000b" + String.format("%03d", i));
+            requests.add(request);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,91 @@
+package com.mengwangbao.xiu2.register;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 二进制编码与 Jackson JSON 的对比基准
+ * 输出报文大小以及编码、解码、生成待签名串的平均耗时
+ * <p>
+ * 运行方式：在 IDE 中直接运行 main，或
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.mengwangbao.xiu2.register.BinaryRequestCodecBenchmark}
+ */
+public class BinaryRequestCodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        RegisterSDK registerSDK = new RegisterSDK();
+
+        DeviceRegisterRequest request = new DeviceRegisterRequest();
+        request.setMac("00:11:22:33:44:55");
+        request.setImei("123456789012345");
+        request.setIccid("89860123456789012345");
+        request.setHardwareVersion("1.2.3");
+        request.setSoftwareVersion("2.1.0");
+        request.setLongitude("116.4074");
+        request.setLatitude("39.9042");
+        request.setDeviceSn("xxxx10000000000b001");
+
+        byte[] json = objectMapper.writeValueAsBytes(request);
+        byte[] binary = BinaryRequestCodec.encode(request);
+
+        System.out.println("=== 报文大小 ===");
+        System.out.println("JSON:   " + json.length + " 字节");
+        System.out.println("Binary: " + binary.length + " 字节");
+
+        System.out.println("\n=== 平均耗时 (ns/op) ===");
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            int iterations = report ? ITERATIONS : WARMUP_ITERATIONS;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink = objectMapper.writeValueAsBytes(request);
+            }
+            print(report, "JSON 编码", start, iterations);
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink = BinaryRequestCodec.encode(request);
+            }
+            print(report, "Binary 编码", start, iterations);
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink = objectMapper.readValue(json, DeviceRegisterRequest.class);
+            }
+            print(report, "JSON 解码", start, iterations);
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink = BinaryRequestCodec.decode(binary);
+            }
+            print(report, "Binary 解码", start, iterations);
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink = registerSDK.buildSignString(objectMapper.readValue(json, DeviceRegisterRequest.class))
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+            print(report, "JSON 解码 + 待签名串", start, iterations);
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink = BinaryRequestCodec.buildSignString(binary).getBytes(StandardCharsets.UTF_8);
+            }
+            print(report, "Binary 待签名串", start, iterations);
+        }
+    }
+
+    private static void print(boolean report, String name, long start, int iterations) {
+        if (report) {
+            System.out.printf("%-24s %8.1f%n", name, (System.nanoTime() - start) / (double) iterations);
+        }
+    }
+}
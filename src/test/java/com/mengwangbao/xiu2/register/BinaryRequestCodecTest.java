@@ -0,0 +1,165 @@
+package com.mengwangbao.xiu2.register;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * BinaryRequestCodec 单元测试
+ */
+public class BinaryRequestCodecTest {
+
+    private static final long TIMESTAMP = 1763631389011L;
+    private static final String NONCE = "b5DF8e7a6b9c54e4d9e8a6b9c54e4d9E";
+
+    private final RegisterSDK registerSDK = new RegisterSDK();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        DeviceRegisterRequest request = TestRequests.sampleRequest(TIMESTAMP, NONCE);
+
+        byte[] data = BinaryRequestCodec.encode(request);
+        DeviceRegisterRequest decoded = BinaryRequestCodec.decode(data);
+
+        assertEquals(registerSDK.serializeRequestToJson(request), registerSDK.serializeRequestToJson(decoded));
+        assertTrue("二进制报文应明显小于JSON",
+                data.length * 2 < registerSDK.serializeRequestToJson(request).length());
+    }
+
+    @Test
+    public void testSignStringMatchesJsonPath() throws Exception {
+        DeviceRegisterRequest request = TestRequests.sampleRequest(TIMESTAMP, NONCE);
+        byte[] data = BinaryRequestCodec.encode(request);
+
+        assertEquals(registerSDK.buildSignString(request), BinaryRequestCodec.buildSignString(data));
+    }
+
+    @Test
+    public void testSignStringFollowsRegisteredSchema() throws Exception {
+        Map<CanonicalField, ValueEncoder> fields = new EnumMap<>(CanonicalField.class);
+        fields.put(CanonicalField.DEVICE_SN, ValueEncoder.IDENTITY);
+        fields.put(CanonicalField.MAC, ValueEncoder.LOWER_CASE);
+        fields.put(CanonicalField.NONCE, ValueEncoder.IDENTITY);
+        fields.put(CanonicalField.SCHEMA_VERSION, ValueEncoder.IDENTITY);
+        fields.put(CanonicalField.TIMESTAMP, ValueEncoder.IDENTITY);
+        CanonicalizerRegistry registry = CanonicalizerRegistry.withDefaults();
+        registry.register(new CompiledCanonicalizer("1.1", fields));
+        registry.register(CompiledCanonicalizer.allFields("1.2"));
+        RegisterSDK sdk = new RegisterSDK(registry);
+
+        for (String version : new String[]{"1.0", "1.1", "1.2", "9.9"}) {
+            DeviceRegisterRequest request = TestRequests.sampleRequest(TIMESTAMP, NONCE);
+            request.setSchemaVersion(version);
+            byte[] data = BinaryRequestCodec.encode(request);
+            assertEquals(version, sdk.buildSignString(request), BinaryRequestCodec.buildSignString(data, registry));
+            assertEquals(version, sdk.buildSignString(request), sdk.buildSignString(data));
+        }
+    }
+
+    @Test
+    public void testFallbackEncodingsAndEmptyFields() throws Exception {
+        DeviceRegisterRequest request = TestRequests.sampleRequest(TIMESTAMP, NONCE);
+        request.setMac("00:11:22:aa:bb:cc");
+        request.setImei("");
+        request.setIccid("8986A1");
+        request.setNonce("not-a-hex-nonce");
+        request.setLongitude(null);
+
+        DeviceRegisterRequest decoded = BinaryRequestCodec.decode(BinaryRequestCodec.encode(request));
+
+        assertEquals("00:11:22:aa:bb:cc", decoded.getMac());
+        assertNull(decoded.getImei());
+        assertEquals("8986A1", decoded.getIccid());
+        assertEquals("not-a-hex-nonce", decoded.getNonce());
+        assertNull(decoded.getLongitude());
+        assertEquals(registerSDK.buildSignString(request),
+                BinaryRequestCodec.buildSignString(BinaryRequestCodec.encode(request)));
+    }
+
+    @Test
+    public void testGeneratedNoncesRoundTrip() {
+        DeviceRegisterRequest request = TestRequests.sampleRequest(TIMESTAMP, NONCE);
+        for (int i = 0; i < 100; i++) {
+            request.setNonce(request.generateNonce());
+            assertEquals(request.getNonce(), BinaryRequestCodec.decode(BinaryRequestCodec.encode(request)).getNonce());
+        }
+    }
+
+    @Test
+    public void testRejectsMalformedInput() {
+        byte[] data = BinaryRequestCodec.encode(TestRequests.sampleRequest(TIMESTAMP, NONCE));
+
+        assertRejected(new byte[0]);
+        assertRejected(new byte[]{2});
+        for (int length = 2; length < data.length; length++) {
+            assertRejected(Arrays.copyOf(data, length));
+        }
+
+        // 字段重复
+        byte[] duplicated = Arrays.copyOf(data, data.length + 2);
+        duplicated[data.length] = (byte) (BinaryRequestCodec.FIELD_TIMESTAMP << 3 | 1);
+        duplicated[data.length + 1] = 1;
+        assertRejected(duplicated);
+
+        // 超长 varint
+        byte[] longVarint = new byte[]{1, (byte) (BinaryRequestCodec.FIELD_TIMESTAMP << 3 | 1),
+                -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1};
+        assertRejected(longVarint);
+    }
+
+    @Test
+    public void testOptionalFieldsMayBeOmitted() throws Exception {
+        DeviceRegisterRequest request = new DeviceRegisterRequest(1763631389011L, "b5df8e7a6b9c54e4d9e8a6b9c54e4d9e");
+        request.setSchemaVersion(null);
+        request.setDeviceSn("xxxx10000000000b001");
+
+        byte[] data = BinaryRequestCodec.encode(request);
+        DeviceRegisterRequest decoded = BinaryRequestCodec.decode(data);
+
+        assertEquals(registerSDK.serializeRequestToJson(request), registerSDK.serializeRequestToJson(decoded));
+        assertEquals(registerSDK.buildSignString(request), BinaryRequestCodec.buildSignString(data));
+    }
+
+    @Test
+    public void testRequiredFields() {
+        DeviceRegisterRequest request = TestRequests.sampleRequest(TIMESTAMP, NONCE);
+        request.setNonce(null);
+        assertEncodeRejected(request);
+
+        request = TestRequests.sampleRequest(TIMESTAMP, NONCE);
+        request.setDeviceSn("");
+        assertEncodeRejected(request);
+
+        // 只有格式版本和 timestamp 的报文缺少 device_sn 与 nonce
+        assertRejected(new byte[]{BinaryRequestCodec.FORMAT_VERSION,
+                (byte) (BinaryRequestCodec.FIELD_TIMESTAMP << 3 | 1), 1});
+    }
+
+    private static void assertRejected(byte[] data) {
+        try {
+            BinaryRequestCodec.decode(data);
+            fail("应拒绝非法报文: " + Arrays.toString(data));
+        } catch (IllegalArgumentException expected) {
+            // 预期异常
+        }
+        try {
+            BinaryRequestCodec.buildSignString(data);
+            fail("应拒绝非法报文: " + Arrays.toString(data));
+        } catch (IllegalArgumentException expected) {
+            // 预期异常
+        }
+    }
+
+    private static void assertEncodeRejected(DeviceRegisterRequest request) {
+        try {
+            BinaryRequestCodec.encode(request);
+            fail("缺少必填字段时应拒绝编码");
+        } catch (IllegalArgumentException expected) {
+            // 预期异常
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.mengwangbao.xiu2.register;
+
+import com.mengwangbao.xiu2.util.SignatureParamBuilder;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 规范化规则注册表单元测试
+ */
+public class CanonicalizerRegistryTest {
+
+    @Test
+    public void testCompiledV1MatchesGenericBuilder() throws Exception {
+        Canonicalizer v1 = CanonicalizerRegistry.getDefault().get("1.0");
+        assertNotNull(v1);
+
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        assertEquals(SignatureParamBuilder.buildSignString(request.toMap()), v1.canonicalize(request));
+
+        // 可选字段为空时同样跳过
+        request.setIccid("");
+        request.setImei(null);
+        request.setNonce(null);
+        assertEquals(SignatureParamBuilder.buildSignString(request.toMap()), v1.canonicalize(request));
+    }
+
+    @Test
+    public void testSdkSelectsBySchemaVersion() throws Exception {
+        Map<CanonicalField, ValueEncoder> fields = new EnumMap<>(CanonicalField.class);
+        fields.put(CanonicalField.DEVICE_SN, ValueEncoder.IDENTITY);
+        fields.put(CanonicalField.MAC, ValueEncoder.LOWER_CASE);
+        fields.put(CanonicalField.NONCE, null);
+        fields.put(CanonicalField.SCHEMA_VERSION, ValueEncoder.IDENTITY);
+        fields.put(CanonicalField.TIMESTAMP, ValueEncoder.IDENTITY);
+
+        CanonicalizerRegistry registry = CanonicalizerRegistry.withDefaults();
+        registry.register(new CompiledCanonicalizer("1.1", fields));
+        RegisterSDK registerSDK = new RegisterSDK(registry);
+
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        request.setMac("00:11:22:AA:BB:CC");
+        request.setSchemaVersion("1.1");
+        assertEquals("device_sn=xxxx10000000000b001&mac=00:11:22:aa:bb:cc&nonce=" + request.getNonce()
+                + "&schema_version=1.1&timestamp=" + request.getTimestamp(), registerSDK.buildSignString(request));
+
+        // 未注册的版本回退到通用规则
+        request.setSchemaVersion("9.9");
+        assertEquals(SignatureParamBuilder.buildSignString(request.toMap()), registerSDK.buildSignString(request));
+        assertNull(registry.get(null));
+    }
+
+    @Test
+    public void testRegisterReplacesVersion() {
+        CanonicalizerRegistry registry = new CanonicalizerRegistry();
+        assertNull(registry.get("1.0"));
+        Canonicalizer first = CompiledCanonicalizer.allFields("1.0");
+        Canonicalizer second = CompiledCanonicalizer.allFields("1.0");
+        registry.register(first);
+        registry.register(second);
+        assertSame(second, registry.get("1.0"));
+        assertEquals(1, registry.getSchemaVersions().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyFieldsRejected() {
+        new CompiledCanonicalizer("1.1", new EnumMap<>(CanonicalField.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSchemaVersionFieldRequired() {
+        Map<CanonicalField, ValueEncoder> fields = new EnumMap<>(CanonicalField.class);
+        fields.put(CanonicalField.DEVICE_SN, ValueEncoder.IDENTITY);
+        fields.put(CanonicalField.NONCE, ValueEncoder.IDENTITY);
+        fields.put(CanonicalField.TIMESTAMP, ValueEncoder.IDENTITY);
+        new CompiledCanonicalizer("1.1", fields);
+    }
+}
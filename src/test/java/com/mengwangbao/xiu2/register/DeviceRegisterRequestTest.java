@@ -0,0 +1,78 @@
+package com.mengwangbao.xiu2.register;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * DeviceRegisterRequest 反序列化单元测试
+ */
+public class DeviceRegisterRequestTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        DeviceRegisterRequest request = new DeviceRegisterRequest();
+        request.setMac("00:11:22:33:44:55");
+        request.setImei("123456789012345");
+        request.setIccid("89860123456789012345");
+        request.setHardwareVersion("1.2.3");
+        request.setSoftwareVersion("2.1.0");
+        request.setLongitude("116.4074");
+        request.setLatitude("39.9042");
+        request.setDeviceSn("xxxx10000000000b001");
+
+        String json = objectMapper.writeValueAsString(request);
+        DeviceRegisterRequest parsed = objectMapper.readValue(json, DeviceRegisterRequest.class);
+
+        assertEquals(json, objectMapper.writeValueAsString(parsed));
+        assertEquals(request.getTimestamp(), parsed.getTimestamp());
+        assertEquals(request.getNonce(), parsed.getNonce());
+    }
+
+    @Test
+    public void testMissingFieldsAreNotGenerated() throws Exception {
+        DeviceRegisterRequest parsed = objectMapper.readValue("{\"device_sn\":\"xxxx10000000000b001\",\"imei\":null}",
+                DeviceRegisterRequest.class);
+
+        assertEquals("xxxx10000000000b001", parsed.getDeviceSn());
+        assertEquals("1.0", parsed.getSchemaVersion());
+        assertEquals(0L, parsed.getTimestamp());
+        assertNull(parsed.getNonce());
+        assertNull(parsed.getImei());
+    }
+
+    @Test
+    public void testScalarCoercion() throws Exception {
+        DeviceRegisterRequest parsed = objectMapper.readValue("{\"imei\":123456789012345,\"timestamp\":\"1763631389011\"}",
+                DeviceRegisterRequest.class);
+
+        assertEquals("123456789012345", parsed.getImei());
+        assertEquals(1763631389011L, parsed.getTimestamp());
+    }
+
+    @Test(expected = UnrecognizedPropertyException.class)
+    public void testUnknownPropertyFailsByDefault() throws Exception {
+        objectMapper.readValue("{\"device_sn\":\"x\",\"signature\":\"abc\"}", DeviceRegisterRequest.class);
+    }
+
+    @Test
+    public void testUnknownPropertyIgnoredWhenConfigured() throws Exception {
+        ObjectMapper lenient = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        DeviceRegisterRequest parsed = lenient.readValue(
+                "{\"device_sn\":\"x\",\"extra\":{\"a\":[1,2]},\"nonce\":\"abc\"}", DeviceRegisterRequest.class);
+
+        assertEquals("x", parsed.getDeviceSn());
+        assertEquals("abc", parsed.getNonce());
+    }
+
+    @Test(expected = MismatchedInputException.class)
+    public void testStructuredValueRejected() throws Exception {
+        objectMapper.readValue("{\"mac\":{\"a\":1}}", DeviceRegisterRequest.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.mengwangbao.xiu2.register;
+
+import com.mengwangbao.xiu2.loadtest.RegisterStubServer;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * RegisterClient 单元测试，使用本地桩服务
+ */
+public class RegisterClientTest {
+
+    @Test
+    public void testRegister() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        Ed25519Utils.KeyPairResult otherKeyPair = Ed25519Utils.generateKeyPair();
+
+        try (RegisterStubServer server = new RegisterStubServer(keyPair.getPublicKeyPem(), 0, 2);
+             RegisterClient client = new RegisterClient(server.getEndpoint(), keyPair.getPrivateKeyPem());
+             RegisterClient wrongKeyClient = new RegisterClient(server.getEndpoint(), otherKeyPair.getPrivateKeyPem())) {
+
+            DeviceRegisterRequest request = sampleRequest(0);
+            RegisterResponse response = client.register(request);
+            assertEquals(200, response.getStatusCode());
+            assertTrue(response.isSuccess());
+
+            // 桩服务走完整校验流程：nonce 重复为重放，字段格式错误在验签前被拒绝
+            assertEquals(409, client.register(request).getStatusCode());
+            DeviceRegisterRequest malformed = sampleRequest(2);
+            malformed.setMac("bad-mac");
+            assertEquals(400, client.register(malformed).getStatusCode());
+
+            RegisterResponse rejected = wrongKeyClient.register(sampleRequest(1));
+            assertEquals(401, rejected.getStatusCode());
+            assertFalse(rejected.isSuccess());
+        }
+    }
+
+    @Test
+    public void testRegisterAsync() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+
+        try (RegisterStubServer server = new RegisterStubServer(keyPair.getPublicKeyPem(), 20, 2);
+             RegisterClient client = new RegisterClient(server.getEndpoint(), keyPair.getPrivateKeyPem(),
+                     RegisterExecutors.newBlockingExecutor(16))) {
+
+            List<CompletableFuture<RegisterResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(client.registerAsync(sampleRequest(i)));
+            }
+            for (CompletableFuture<RegisterResponse> future : futures) {
+                assertEquals(200, future.join().getStatusCode());
+            }
+            assertEquals(50, server.getAcceptedCount());
+        }
+    }
+
+    private static DeviceRegisterRequest sampleRequest(int index) {
+        DeviceRegisterRequest request = new DeviceRegisterRequest();
+        request.setMac("00:11:22:33:44:55");
+        request.setHardwareVersion("1.2.3");
+        request.setSoftwareVersion("2.1.0");
+        request.setDeviceSn("xxxx10000000000b" + index);
+        return request;
+    }
+}
@@ -0,0 +1,123 @@
+package com.mengwangbao.xiu2.register;
+
+import com.mengwangbao.xiu2.util.DeviceRateLimiter;
+import com.mengwangbao.xiu2.util.Ed25519Utils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.UncheckedIOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * RegisterVerifier 单元测试
+ */
+public class RegisterVerifierTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final RegisterSDK registerSDK = new RegisterSDK();
+
+    @Test
+    public void testVerifyPipeline() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        RegisterVerifier verifier = new RegisterVerifier(keyPair.getPublicKeyPem());
+
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        String signature = registerSDK.generateSignature(registerSDK.buildSignString(request), keyPair.getPrivateKeyPem());
+        assertEquals(RegisterVerifier.Result.ACCEPTED, verifier.verify(request, signature));
+
+        assertEquals(RegisterVerifier.Result.INVALID_SIGNATURE, verifier.verify(request, "not base64!"));
+        assertEquals(RegisterVerifier.Result.INVALID_SIGNATURE, verifier.verify(request, null));
+
+        request.setLatitude("39.9043");
+        assertEquals(RegisterVerifier.Result.INVALID_SIGNATURE, verifier.verify(request, signature));
+
+        request.setMac("bad-mac");
+        assertEquals(RegisterVerifier.Result.INVALID_FIELDS, verifier.verify(request, signature));
+    }
+
+    @Test
+    public void testThrottleBeforeVerification() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        RegisterVerifier verifier = new RegisterVerifier(keyPair.getPublicKeyPem());
+        verifier.setRateLimiter(new DeviceRateLimiter(1024, 0.01, 3, 1_000_000));
+
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        String signature = registerSDK.generateSignature(registerSDK.buildSignString(request), keyPair.getPrivateKeyPem());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(RegisterVerifier.Result.ACCEPTED, verifier.verify(request, signature));
+        }
+        assertEquals(RegisterVerifier.Result.THROTTLED, verifier.verify(request, signature));
+        assertEquals(1, verifier.getRateLimiter().getThrottledCount());
+    }
+
+    @Test
+    public void testReplayRejectedAndAcceptedJournaled() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        RegisterVerifier verifier = new RegisterVerifier(keyPair.getPublicKeyPem());
+        verifier.setNonceWindow(new NonceWindow(300_000));
+
+        // 后台 force 间隔足够长，落盘只能来自 verify 中的 awaitDurable
+        try (RegistrationJournal journal = new RegistrationJournal(folder.getRoot().toPath(), 1024, 60_000)) {
+            verifier.setJournal(journal);
+
+            DeviceRegisterRequest request = TestRequests.sampleRequest();
+            String signature = registerSDK.generateSignature(registerSDK.buildSignString(request), keyPair.getPrivateKeyPem());
+            assertEquals(RegisterVerifier.Result.ACCEPTED, verifier.verify(request, signature));
+            assertEquals(RegisterVerifier.Result.REPLAYED, verifier.verify(request, signature));
+            assertEquals(RegisterVerifier.Result.INVALID_SIGNATURE, verifier.verify(TestRequests.sampleRequest(), signature));
+            assertEquals(1, journal.getNextSequence());
+            assertEquals("返回 ACCEPTED 时记录应已落盘", 1, journal.getDurableSequence());
+        }
+    }
+
+    @Test
+    public void testJournalFailureReleasesNonce() throws Exception {
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        RegisterVerifier verifier = new RegisterVerifier(keyPair.getPublicKeyPem());
+        verifier.setNonceWindow(new NonceWindow(300_000));
+
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        String signature = registerSDK.generateSignature(registerSDK.buildSignString(request), keyPair.getPrivateKeyPem());
+
+        RegistrationJournal closed = new RegistrationJournal(folder.newFolder().toPath());
+        closed.close();
+        verifier.setJournal(closed);
+        try {
+            verifier.verify(request, signature);
+            fail("日志已关闭时应抛出异常");
+        } catch (UncheckedIOException expected) {
+            // 预期异常
+        }
+
+        // 关闭字段校验后超长 device_sn 无法写入日志
+        DeviceRegisterRequest oversized = TestRequests.sampleRequest();
+        StringBuilder sn = new StringBuilder();
+        for (int i = 0; i < 65; i++) {
+            sn.append('x');
+        }
+        oversized.setDeviceSn(sn.toString());
+        String oversizedSignature = registerSDK.generateSignature(registerSDK.buildSignString(oversized), keyPair.getPrivateKeyPem());
+        verifier.setValidateFields(false);
+        try (RegistrationJournal journal = new RegistrationJournal(folder.newFolder().toPath())) {
+            verifier.setJournal(journal);
+            try {
+                verifier.verify(oversized, oversizedSignature);
+                fail("device_sn 超出记录容量时应抛出异常");
+            } catch (IllegalArgumentException expected) {
+                // 预期异常
+            }
+
+            // 日志恢复后重试同一请求应被接受，而不是判为重放
+            assertEquals(RegisterVerifier.Result.ACCEPTED, verifier.verify(request, signature));
+            assertEquals(RegisterVerifier.Result.REPLAYED, verifier.verify(request, signature));
+            assertEquals(1, journal.getNextSequence());
+        }
+        verifier.setJournal(null);
+        assertEquals(RegisterVerifier.Result.ACCEPTED, verifier.verify(oversized, oversizedSignature));
+    }
+}
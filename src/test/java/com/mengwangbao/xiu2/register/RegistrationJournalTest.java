@@ -0,0 +1,210 @@
+package com.mengwangbao.xiu2.register;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * RegistrationJournal 与 NonceWindow 单元测试
+ */
+public class RegistrationJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAppendRollAndReopen() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        long now = System.currentTimeMillis();
+        try (RegistrationJournal journal = new RegistrationJournal(dir, 4, 5)) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i, journal.append("sn-" + i, now + i, nonce(i), signature(i)));
+            }
+            journal.awaitDurable(9);
+            assertTrue(journal.getDurableSequence() >= 10);
+        }
+        assertEquals(3, segmentCount(dir));
+
+        try (RegistrationJournal journal = new RegistrationJournal(dir, 4, 5)) {
+            assertEquals(10, journal.getNextSequence());
+            assertEquals(10, journal.append("sn-10", now, nonce(10), signature(10)));
+
+            List<RegistrationJournal.Entry> entries = new ArrayList<>();
+            journal.forEach(entries::add);
+            assertEquals(11, entries.size());
+            RegistrationJournal.Entry entry = entries.get(7);
+            assertEquals(7, entry.getSequence());
+            assertEquals("sn-7", entry.getDeviceSn());
+            assertEquals(now + 7, entry.getTimestamp());
+            assertEquals(nonce(7), entry.getNonce());
+            assertArrayEquals(signature(7), java.util.Base64.getDecoder().decode(entry.getSignature()));
+        }
+    }
+
+    @Test
+    public void testTornRecordTreatedAsEnd() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (RegistrationJournal journal = new RegistrationJournal(dir, 16, 5)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append("sn-" + i, i, nonce(i), signature(i));
+            }
+        }
+
+        // 模拟崩溃时最后一条记录只写了一半
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().get();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(2 * RegistrationJournal.RECORD_SIZE + 200);
+            file.write(0x7F);
+        }
+
+        try (RegistrationJournal journal = new RegistrationJournal(dir, 16, 5)) {
+            assertEquals(2, journal.getNextSequence());
+        }
+    }
+
+    @Test
+    public void testRecordsAfterTornRecordDiscarded() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (RegistrationJournal journal = new RegistrationJournal(dir, 16, 5)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append("sn-" + i, i, nonce(i), signature(i));
+            }
+        }
+
+        // 模拟崩溃：第 1 条记录残缺，其后的第 2 条记录完整但从未被确认
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.findFirst().get();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(RegistrationJournal.RECORD_SIZE + 200);
+            file.write(0x7F);
+        }
+
+        try (RegistrationJournal journal = new RegistrationJournal(dir, 16, 5)) {
+            assertEquals(1, journal.getNextSequence());
+            assertEquals(1, journal.append("sn-new", 7, nonce(7), signature(7)));
+        }
+
+        List<String> deviceSns = new ArrayList<>();
+        try (RegistrationJournal journal = new RegistrationJournal(dir, 16, 5)) {
+            journal.forEach(entry -> deviceSns.add(entry.getDeviceSn()));
+            assertEquals(2, journal.getNextSequence());
+        }
+        assertEquals(Arrays.asList("sn-0", "sn-new"), deviceSns);
+    }
+
+    @Test
+    public void testRebuildNonceWindow() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        long now = System.currentTimeMillis();
+        try (RegistrationJournal journal = new RegistrationJournal(dir, 4, 5)) {
+            for (int i = 0; i < 6; i++) {
+                journal.append("sn-" + i, now, nonce(i), signature(i));
+            }
+            // 时间戳已超出窗口的记录不会恢复
+            journal.append("sn-old", now - 3_600_000, nonce(99), signature(99));
+        }
+
+        NonceWindow window = new NonceWindow(60_000);
+        try (RegistrationJournal journal = new RegistrationJournal(dir, 4, 5)) {
+            assertEquals(6, journal.rebuildNonceWindow(window));
+        }
+        assertFalse("重启后仍能识别重放", window.checkAndRecord("sn-3", nonce(3), now));
+        assertTrue(window.checkAndRecord("sn-3", nonce(42), now));
+    }
+
+    @Test
+    public void testNonceWindow() {
+        NonceWindow window = new NonceWindow(1_000);
+        long now = System.currentTimeMillis();
+        assertTrue(window.checkAndRecord("sn", "n1", now, now));
+        assertFalse(window.checkAndRecord("sn", "n1", now, now));
+        assertTrue("不同设备可使用相同 nonce", window.checkAndRecord("sn-2", "n1", now, now));
+        assertFalse("时间戳过旧", window.checkAndRecord("sn", "n2", now - 2_000, now));
+        assertFalse("时间戳超前", window.checkAndRecord("sn", "n3", now + 2_000, now));
+        assertEquals(2, window.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOversizedDeviceSnRejected() throws Exception {
+        try (RegistrationJournal journal = new RegistrationJournal(folder.getRoot().toPath(), 4, 5)) {
+            StringBuilder sn = new StringBuilder();
+            for (int i = 0; i < 65; i++) {
+                sn.append('x');
+            }
+            journal.append(sn.toString(), 0, nonce(0), signature(0));
+        }
+    }
+
+    @Test
+    public void testFlushFailureRejectsAppendUntilRecovered() throws Exception {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        Consumer<MappedByteBuffer> forcer = buffer -> {
+            if (failing.get()) {
+                throw new UncheckedIOException(new IOException("模拟磁盘错误"));
+            }
+            buffer.force();
+        };
+        try (RegistrationJournal journal = new RegistrationJournal(folder.getRoot().toPath(), 16, 5, forcer)) {
+            long sequence = journal.append("sn-0", 0, nonce(0), signature(0));
+            try {
+                journal.awaitDurable(sequence);
+                fail("force 失败时应抛出异常");
+            } catch (IOException expected) {
+                // 预期异常
+            }
+            try {
+                journal.append("sn-1", 1, nonce(1), signature(1));
+                fail("落盘失败未恢复时应拒绝追加");
+            } catch (IOException expected) {
+                // 预期异常
+            }
+
+            // 后台线程重试成功后恢复
+            failing.set(false);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (journal.getDurableSequence() <= sequence && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            journal.awaitDurable(sequence);
+            assertEquals(1, journal.append("sn-1", 1, nonce(1), signature(1)));
+            journal.awaitDurable(1);
+        }
+    }
+
+    private static long segmentCount(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static String nonce(int i) {
+        return String.format("%032d", i);
+    }
+
+    private static byte[] signature(int i) {
+        byte[] signature = new byte[64];
+        signature[0] = (byte) i;
+        signature[63] = (byte) (i * 7);
+        return signature;
+    }
+}
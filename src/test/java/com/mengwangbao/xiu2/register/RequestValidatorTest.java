@@ -0,0 +1,91 @@
+package com.mengwangbao.xiu2.register;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * RequestValidator 单元测试
+ */
+public class RequestValidatorTest {
+
+    @Test
+    public void testValidRequest() {
+        assertEquals(RequestValidator.VALID, RequestValidator.validate(TestRequests.sampleRequest()));
+    }
+
+    @Test
+    public void testOptionalFieldsMayBeEmpty() {
+        DeviceRegisterRequest request = new DeviceRegisterRequest();
+        request.setDeviceSn("xxxx10000000000b001");
+        request.setImei("");
+        assertEquals(RequestValidator.VALID, RequestValidator.validate(request));
+    }
+
+    @Test
+    public void testErrorBitmask() {
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        request.setMac("00-11-22-33-44-55");
+        request.setImei("123456789012345");
+        request.setNonce("short");
+        request.setDeviceSn(null);
+
+        int errors = RequestValidator.validate(request);
+        assertEquals(RequestValidator.ERR_MAC | RequestValidator.ERR_IMEI
+                | RequestValidator.ERR_NONCE | RequestValidator.ERR_DEVICE_SN, errors);
+        assertEquals("mac,imei,device_sn,nonce", RequestValidator.describe(errors));
+    }
+
+    @Test
+    public void testMac() {
+        assertTrue(RequestValidator.isValidMac("00:11:22:aa:BB:cc"));
+        assertFalse(RequestValidator.isValidMac("00:11:22:33:44"));
+        assertFalse(RequestValidator.isValidMac("00:11:22:33:44:5G"));
+        assertFalse(RequestValidator.isValidMac("00:11:22:33:44:55:"));
+    }
+
+    @Test
+    public void testImeiAndIccidLuhn() {
+        assertTrue(RequestValidator.isValidImei("490154203237518"));
+        assertFalse(RequestValidator.isValidImei("490154203237517"));
+        assertFalse(RequestValidator.isValidImei("49015420323751"));
+        assertFalse(RequestValidator.isValidImei("49015420323751a"));
+
+        assertTrue(RequestValidator.isValidIccid("89860123456789012348"));
+        assertFalse(RequestValidator.isValidIccid("89860123456789012345"));
+        assertFalse(RequestValidator.isValidIccid("19860123456789012341"));
+    }
+
+    @Test
+    public void testVersions() {
+        assertTrue(RequestValidator.isValidVersion("1.2.3"));
+        assertTrue(RequestValidator.isValidVersion("10.20.300"));
+        assertFalse(RequestValidator.isValidVersion("1.2"));
+        assertFalse(RequestValidator.isValidVersion("1.2.3.4"));
+        assertFalse(RequestValidator.isValidVersion("1..3"));
+        assertFalse(RequestValidator.isValidVersion("1.2."));
+        assertFalse(RequestValidator.isValidVersion("v1.2.3"));
+        assertTrue(RequestValidator.isValidSchemaVersion("1.0"));
+        assertFalse(RequestValidator.isValidSchemaVersion("1"));
+    }
+
+    @Test
+    public void testCoordinates() {
+        assertTrue(RequestValidator.isValidLongitude("116.4074"));
+        assertTrue(RequestValidator.isValidLongitude("-180"));
+        assertTrue(RequestValidator.isValidLongitude("180.000"));
+        assertFalse(RequestValidator.isValidLongitude("180.0001"));
+        assertFalse(RequestValidator.isValidLongitude("1e2"));
+        assertFalse(RequestValidator.isValidLongitude("116."));
+        assertFalse(RequestValidator.isValidLongitude("-"));
+        assertTrue(RequestValidator.isValidLatitude("39.9042"));
+        assertFalse(RequestValidator.isValidLatitude("90.5"));
+    }
+
+    @Test
+    public void testDeviceSnRejectsSignStringSeparators() {
+        assertFalse(RequestValidator.isValidDeviceSn("sn&mac=00"));
+        assertFalse(RequestValidator.isValidDeviceSn("sn with space"));
+        assertFalse(RequestValidator.isValidDeviceSn(""));
+    }
+}
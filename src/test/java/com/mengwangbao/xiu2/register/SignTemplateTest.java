@@ -0,0 +1,130 @@
+package com.mengwangbao.xiu2.register;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * SignTemplate 单元测试，结果必须与 RegisterSDK.buildSignString 一致
+ */
+public class SignTemplateTest {
+
+    private final RegisterSDK registerSDK = new RegisterSDK();
+
+    @Test
+    public void testMatchesFullCanonicalization() throws Exception {
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        SignTemplate template = registerSDK.prepareSignTemplate(request);
+
+        for (int i = 0; i < 20; i++) {
+            request.setTimestamp(1763631389011L + i);
+            request.setNonce(request.generateNonce());
+            assertTrue(template.matches(request));
+            assertEquals(registerSDK.buildSignString(request), template.buildSignString(request));
+        }
+    }
+
+    @Test
+    public void testEmptyFields() throws Exception {
+        DeviceRegisterRequest request = new DeviceRegisterRequest();
+        request.setSchemaVersion(null);
+        request.setImei("");
+        request.setNonce(null);
+        SignTemplate template = new SignTemplate(request);
+        assertEquals(registerSDK.buildSignString(request), template.buildSignString(request));
+        assertEquals("timestamp=" + request.getTimestamp(), template.buildSignString(request));
+
+        request.setNonce("b5df8e7a6b9c54e4d9e8a6b9c54e4d9e");
+        assertEquals(registerSDK.buildSignString(request), template.buildSignString(request));
+
+        request.setNonce("");
+        assertEquals(registerSDK.buildSignString(request), template.buildSignString(request));
+    }
+
+    @Test
+    public void testRecompileWhenStaticFieldChanges() throws Exception {
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        SignTemplate template = new SignTemplate(request);
+        template.buildSignString(request);
+
+        request.setSoftwareVersion("2.2.0");
+        assertFalse(template.matches(request));
+        assertEquals(registerSDK.buildSignString(request), template.buildSignString(request));
+        assertTrue(template.matches(request));
+
+        request.setMac(null);
+        request.setDeviceSn("xxxx10000000000b002");
+        assertEquals(registerSDK.buildSignString(request), template.buildSignString(request));
+    }
+
+    @Test
+    public void testNonGenericSchemaRejected() throws Exception {
+        CanonicalizerRegistry registry = CanonicalizerRegistry.withDefaults();
+        registry.register(subsetRules("1.1"));
+        registry.register(CompiledCanonicalizer.allFields("1.2"));
+        RegisterSDK sdk = new RegisterSDK(registry);
+
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        request.setSchemaVersion("1.1");
+        assertTemplateRejected(sdk, request);
+
+        // 全部字段、原样输出的版本与 1.0 规则相同，可以使用模板
+        request.setSchemaVersion("1.2");
+        assertEquals(sdk.buildSignString(request), sdk.prepareSignTemplate(request).buildSignString(request));
+
+        // 已有模板在 schema_version 改变后不能按通用规则静默重建
+        request.setSchemaVersion("1.0");
+        SignTemplate template = sdk.prepareSignTemplate(request);
+        assertEquals(sdk.buildSignString(request), template.buildSignString(request));
+        request.setSchemaVersion("1.1");
+        try {
+            template.buildSignString(request);
+            fail("schema 1.1 不应使用通用规则模板");
+        } catch (IllegalArgumentException expected) {
+            // 预期异常
+        }
+    }
+
+    @Test
+    public void testCustomRegistryOverridingV1() throws Exception {
+        CanonicalizerRegistry registry = new CanonicalizerRegistry();
+        registry.register(subsetRules(CanonicalizerRegistry.SCHEMA_VERSION_1_0));
+        RegisterSDK sdk = new RegisterSDK(registry);
+
+        DeviceRegisterRequest request = TestRequests.sampleRequest();
+        assertTemplateRejected(sdk, request);
+
+        // 创建模板后注册表替换了规则，模板不能继续输出旧规则的结果
+        CanonicalizerRegistry replaced = CanonicalizerRegistry.withDefaults();
+        SignTemplate template = new RegisterSDK(replaced).prepareSignTemplate(request);
+        replaced.register(subsetRules(CanonicalizerRegistry.SCHEMA_VERSION_1_0));
+        try {
+            template.buildSignString(request);
+            fail("注册表规则已替换，模板应拒绝生成");
+        } catch (IllegalArgumentException expected) {
+            // 预期异常
+        }
+    }
+
+    private static CompiledCanonicalizer subsetRules(String schemaVersion) {
+        Map<CanonicalField, ValueEncoder> fields = new EnumMap<>(CanonicalField.class);
+        fields.put(CanonicalField.DEVICE_SN, ValueEncoder.IDENTITY);
+        fields.put(CanonicalField.MAC, ValueEncoder.LOWER_CASE);
+        fields.put(CanonicalField.NONCE, ValueEncoder.IDENTITY);
+        fields.put(CanonicalField.SCHEMA_VERSION, ValueEncoder.IDENTITY);
+        fields.put(CanonicalField.TIMESTAMP, ValueEncoder.IDENTITY);
+        return new CompiledCanonicalizer(schemaVersion, fields);
+    }
+
+    private static void assertTemplateRejected(RegisterSDK sdk, DeviceRegisterRequest request) {
+        try {
+            sdk.prepareSignTemplate(request);
+            fail("schema " + request.getSchemaVersion() + " 不应创建模板");
+        } catch (IllegalArgumentException expected) {
+            // 预期异常
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.mengwangbao.xiu2.register;
+
+/**
+ * 测试共用的设备注册请求样例
+ * <p>
+ * IMEI、ICCID 均通过 Luhn 校验，可直接通过 {@link RequestValidator} 的字段校验
+ */
+public final class TestRequests {
+
+    private TestRequests() {
+    }
+
+    /**
+     * 字段齐全的合法请求，时间戳与 nonce 为构造时随机生成
+     */
+    public static DeviceRegisterRequest sampleRequest() {
+        DeviceRegisterRequest request = new DeviceRegisterRequest();
+        request.setMac("00:11:22:33:44:55");
+        request.setImei("490154203237518");
+        request.setIccid("89860123456789012348");
+        request.setHardwareVersion("1.2.3");
+        request.setSoftwareVersion("2.1.0");
+        request.setLongitude("116.4074");
+        request.setLatitude("39.9042");
+        request.setDeviceSn("xxxx10000000000b001");
+        return request;
+    }
+
+    /**
+     * 与 {@link #sampleRequest()} 相同，但使用固定的时间戳与 nonce，便于比对编码结果
+     */
+    public static DeviceRegisterRequest sampleRequest(long timestamp, String nonce) {
+        DeviceRegisterRequest request = sampleRequest();
+        request.setTimestamp(timestamp);
+        request.setNonce(nonce);
+        return request;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mengwangbao.xiu2.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * DeviceRateLimiter 单元测试
+ */
+public class DeviceRateLimiterTest {
+
+    @Test
+    public void testBurstThenRefill() {
+        DeviceRateLimiter limiter = new DeviceRateLimiter(1024, 10, 5, 60_000);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("sn-1", now));
+        }
+        assertFalse(limiter.tryAcquire("sn-1", now));
+        assertTrue("其他设备不受影响", limiter.tryAcquire("sn-2", now));
+
+        // 每秒 10 个令牌，100ms 补充 1 个
+        assertFalse(limiter.tryAcquire("sn-1", now + 50));
+        assertTrue(limiter.tryAcquire("sn-1", now + 100));
+        assertFalse(limiter.tryAcquire("sn-1", now + 100));
+
+        assertEquals(7, limiter.getAdmittedCount());
+        assertEquals(3, limiter.getThrottledCount());
+    }
+
+    @Test
+    public void testFractionalRateKeepsRemainder() {
+        // 每秒 1 个令牌，分多次 300ms 的间隔访问，累计 1 秒后应补充 1 个
+        DeviceRateLimiter limiter = new DeviceRateLimiter(16, 1, 1, 60_000);
+        long now = System.currentTimeMillis();
+        assertTrue(limiter.tryAcquire("sn", now));
+        assertFalse(limiter.tryAcquire("sn", now + 300));
+        assertFalse(limiter.tryAcquire("sn", now + 600));
+        assertFalse(limiter.tryAcquire("sn", now + 900));
+        assertTrue(limiter.tryAcquire("sn", now + 1000));
+    }
+
+    @Test
+    public void testExpiredSlotsAreReused() {
+        DeviceRateLimiter limiter = new DeviceRateLimiter(1, 1000, 1, 1_000);
+        long now = System.currentTimeMillis();
+
+        // 表容量为 2，前两个设备占满后，新设备在探测范围内找不到槽位，fail-open
+        assertTrue(limiter.tryAcquire("sn-a", now));
+        assertTrue(limiter.tryAcquire("sn-b", now));
+        assertTrue(limiter.tryAcquire("sn-c", now));
+        assertEquals(1, limiter.getOverflowCount());
+
+        // 空闲超过 1 秒后槽位可被复用，新设备开始受限流约束
+        long later = now + 2_000;
+        assertTrue(limiter.tryAcquire("sn-c", later));
+        assertFalse(limiter.tryAcquire("sn-c", later));
+        assertEquals(1, limiter.getOverflowCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExpiryShorterThanRefillRejected() {
+        new DeviceRateLimiter(16, 1, 10, 5_000);
+    }
+
+    @Test
+    public void testConcurrentAcquireNeverExceedsBurst() throws Exception {
+        DeviceRateLimiter limiter = new DeviceRateLimiter(1024, 0.001, 100, 100_000_000);
+        long now = System.currentTimeMillis();
+        int threads = 8;
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire("hot-device", now)) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(100, admitted.get());
+    }
+}
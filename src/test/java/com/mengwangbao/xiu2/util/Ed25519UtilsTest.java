@@ -103,6 +103,23 @@ public class Ed25519UtilsTest {
         assertEquals("相同消息的签名应该相同（Ed25519 是确定性的）", sig1, sig2);
     }
 
+    @Test
+    public void testDecodePemWithDifferentLineEndings() throws Exception {
+        System.out.println("\n=== 测试不同换行格式的 PEM ===");
+
+        Ed25519Utils.KeyPairResult keyPair = Ed25519Utils.generateKeyPair();
+        String privateKeyPem = keyPair.getPrivateKeyPem().replace("\n", "\r\n");
+        String publicKeyPem = keyPair.getPublicKeyPem().replace("\n", "\r\n");
+
+        byte[] messageBytes = "Hello, Ed25519!".getBytes(StandardCharsets.UTF_8);
+        String signature = Ed25519Utils.signMessage(messageBytes, privateKeyPem);
+
+        assertEquals(Ed25519Utils.signMessage(messageBytes, keyPair.getPrivateKeyPem()), signature);
+        assertTrue(Ed25519Utils.verifySignature(messageBytes, signature, publicKeyPem));
+        assertFalse("私钥不能当作公钥解析", Ed25519Utils.validatePublicKeyFormat(keyPair.getPrivateKeyPem()));
+        assertFalse("公钥不能当作私钥解析", Ed25519Utils.validatePrivateKeyFormat(keyPair.getPublicKeyPem()));
+    }
+
     /**
      * 生成密钥对用于 Python 互操作性测试
      * 运行此测试，复制输出的密钥到 Python 脚本中测试
@@ -0,0 +1,78 @@
+package com.mengwangbao.xiu2.util;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * MerkleTree 单元测试
+ */
+public class MerkleTreeTest {
+
+    @Test
+    public void testSingleLeafRootIsLeafHash() {
+        byte[] leaf = MerkleTree.leafHash("a".getBytes(StandardCharsets.UTF_8));
+        List<byte[]> leaves = new ArrayList<>();
+        leaves.add(leaf);
+        assertArrayEquals(leaf, MerkleTree.rootHash(leaves));
+        assertTrue(MerkleTree.inclusionProof(leaves, 0).isEmpty());
+    }
+
+    @Test
+    public void testUnbalancedTreeShape() {
+        // 3 个叶子：左子树 2 个，右子树 1 个
+        List<byte[]> leaves = leaves(3);
+        byte[] expected = MerkleTree.nodeHash(MerkleTree.nodeHash(leaves.get(0), leaves.get(1)), leaves.get(2));
+        assertArrayEquals(expected, MerkleTree.rootHash(leaves));
+    }
+
+    @Test
+    public void testInclusionProofForEverySize() {
+        for (int size = 1; size <= 33; size++) {
+            List<byte[]> leaves = leaves(size);
+            byte[] root = MerkleTree.rootHash(leaves);
+            for (int index = 0; index < size; index++) {
+                List<byte[]> proof = MerkleTree.inclusionProof(leaves, index);
+                assertTrue("size=" + size + " index=" + index,
+                        MerkleTree.verifyInclusion(leaves.get(index), index, size, proof, root));
+                if (size > 1) {
+                    int other = (index + 1) % size;
+                    assertFalse(MerkleTree.verifyInclusion(leaves.get(other), index, size, proof, root));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testProofRejectsWrongTreeSize() {
+        List<byte[]> leaves = leaves(5);
+        List<byte[]> proof = MerkleTree.inclusionProof(leaves, 4);
+        byte[] root = MerkleTree.rootHash(leaves);
+        assertFalse(MerkleTree.verifyInclusion(leaves.get(4), 4, 9, proof, root));
+        assertNull(MerkleTree.rootFromInclusionProof(leaves.get(4), 5, 5, proof));
+    }
+
+    @Test
+    public void testHexRoundTrip() {
+        byte[] bytes = {0, 1, (byte) 0xAB, (byte) 0xFF};
+        assertEquals("0001abff", MerkleTree.toHex(bytes));
+        assertArrayEquals(bytes, MerkleTree.fromHex("0001ABff"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyTreeRejected() {
+        MerkleTree.rootHash(new ArrayList<>());
+    }
+
+    private static List<byte[]> leaves(int count) {
+        List<byte[]> leaves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            leaves.add(MerkleTree.leafHash(("leaf-" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        return leaves;
+    }
+}